@@ -0,0 +1,6 @@
+# Runs many solutions in a single JVM, the first argument is either a manifest
+# file or a directory with puzzle inputs (e.g. input-files/2024), the second
+# optional one is the number of threads. See solutions.BatchRunner for details.
+$AOC_ROOT_DIR/java/gradlew -p $AOC_ROOT_DIR/java/ jar
+
+time java -jar -ea $AOC_ROOT_DIR/java/build/libs/aoc-java-solutions-1.0-SNAPSHOT.jar batch "$@"
@@ -0,0 +1,3 @@
+# Runs the JMH benchmarks of all solutions, see the jmh block in build.gradle
+# for the warmup, fork and profiler settings.
+$AOC_ROOT_DIR/java/gradlew -p $AOC_ROOT_DIR/java/ jmh
@@ -0,0 +1,51 @@
+package solutions.year2024;
+
+import org.openjdk.jmh.annotations.*;
+import solutions.Solution;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+
+/**
+ * Runs both parts of each of the 2024 solutions against its puzzle input.
+ * The location of the input files is controlled by the aoc.input.dir
+ * system property which is set by the jmh block in build.gradle.
+ * <p>
+ * The answers are returned from the benchmark methods so that JMH consumes
+ * them and the solver work cannot be eliminated as dead code.
+ */
+@State(Scope.Benchmark)
+public class Year2024Benchmark {
+    private static final int YEAR = 2024;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15",
+            "16", "17", "18", "19", "20", "21", "22", "23", "24", "25"})
+    public int day;
+
+    private Solution<?, ?> solution;
+    private String inputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String inputDir = System.getProperty("aoc.input.dir", "../input-files");
+        inputFile = Path.of(inputDir, String.valueOf(YEAR), "day-%d-puzzle-input".formatted(day))
+                .toString();
+        try {
+            solution = (Solution<?, ?>) Class.forName("solutions.year%d.Day%d".formatted(YEAR, day))
+                    .getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | InvocationTargetException | InstantiationException |
+                 IllegalAccessException | NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Benchmark
+    public Object firstPart() {
+        return solution.solveFirstPart(inputFile);
+    }
+
+    @Benchmark
+    public Object secondPart() {
+        return solution.solveSecondPart(inputFile);
+    }
+}
@@ -0,0 +1,153 @@
+package solutions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs many puzzle solutions inside a single JVM on a fixed thread pool. This
+ * avoids paying for the JVM startup (and the warmup of the JIT) for each
+ * of the solutions when we want to run a whole year at once.
+ * <p>
+ * The solutions to run are either listed in a manifest file, where each
+ * non-empty line that doesn't start with '#' has the same format as the
+ * arguments of {@link SolutionRunner}:
+ * <pre>
+ * 2024 1 1 input-files/2024/day-1-puzzle-input
+ * 2024 1 2 input-files/2024/day-1-puzzle-input
+ * </pre>
+ * or discovered from a directory with puzzle inputs (e.g. input-files/2024),
+ * in which case both parts are run for each day-N-puzzle-input file found there
+ * and the year is taken from the name of the directory.
+ */
+public class BatchRunner {
+    private static final Pattern PUZZLE_INPUT_FILE_NAME = Pattern.compile("day-(\\d+)-puzzle-input");
+
+    private record Task(int year, int day, int part, String inputFile) {
+        static Task fromString(String line) {
+            String[] parts = line.trim().split("\\s+");
+            assert parts.length == 4 : "Manifest lines need to look like '<year> <day> <part> "
+                                       + "<input file>' but got: '%s'".formatted(line);
+            return new Task(Integer.parseInt(parts[0]),
+                            Integer.parseInt(parts[1]),
+                            Integer.parseInt(parts[2]),
+                            parts[3]);
+        }
+
+        SolutionResult<?> run() {
+            Solution<?, ?> solution = SolutionRunner.instantiateSolution(year, day);
+            return part == 1 ? solution.runFirstPart(inputFile) : solution.runSecondPart(inputFile);
+        }
+
+        @Override
+        public String toString() {
+            return "%d day %d part %d".formatted(year, day, part);
+        }
+    }
+
+    /**
+     * @param source  path to either a manifest file or a directory with puzzle inputs
+     * @param threads number of solutions that are allowed to run concurrently
+     */
+    public static void run(String source, int threads) {
+        List<Task> tasks = Files.isDirectory(Path.of(source))
+                ? discoverTasks(Path.of(source))
+                : readManifest(Path.of(source));
+
+        if (Utils.VERBOSE) {
+            System.out.printf("Running %d solutions on %d threads\n", tasks.size(), threads);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Duration> solveTimes = new ArrayList<>();
+        Optional<Task> slowestTask = Optional.empty();
+        Duration slowestTime = Duration.ZERO;
+        int failures = 0;
+        // The pool threads aren't daemons, so the pool has to be shut down even when
+        // waiting for the results fails, otherwise the JVM would never exit.
+        try {
+            List<Future<SolutionResult<?>>> futures = tasks.stream()
+                    .map(task -> executor.submit(task::run))
+                    .toList();
+
+            // The results are reported in the order of the tasks so that the output
+            // is stable regardless of the number of threads.
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                try {
+                    SolutionResult<?> result = futures.get(i).get();
+                    Duration elapsed = result.elapsed().get();
+                    solveTimes.add(elapsed);
+                    if (elapsed.compareTo(slowestTime) > 0) {
+                        slowestTime = elapsed;
+                        slowestTask = Optional.of(task);
+                    }
+                    System.out.printf("%s: %s\n", task, result);
+                } catch (ExecutionException e) {
+                    failures++;
+                    System.out.printf("%s: failed with %s\n", task, e.getCause());
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Duration wallClockTime = Duration.ofNanos(System.nanoTime() - start);
+        Duration totalSolveTime = solveTimes.stream().reduce(Duration.ZERO, Duration::plus);
+
+        System.out.printf("Solved %d/%d in %d ms (%d ms of solve time on %d threads)\n",
+                          tasks.size() - failures,
+                          tasks.size(),
+                          wallClockTime.toMillis(),
+                          totalSolveTime.toMillis(),
+                          threads);
+        if (slowestTask.isPresent()) {
+            System.out.printf("Slowest: %s (%d ms)\n", slowestTask.get(), slowestTime.toMillis());
+        }
+    }
+
+    private static List<Task> readManifest(Path manifest) {
+        try (Stream<String> lines = Files.lines(manifest)) {
+            return lines.filter(line -> !line.isBlank() && !line.trim().startsWith("#"))
+                    .map(Task::fromString)
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Task> discoverTasks(Path inputDirectory) {
+        int year = Integer.parseInt(inputDirectory.toAbsolutePath().normalize().getFileName().toString());
+        try (Stream<Path> files = Files.list(inputDirectory)) {
+            return files.map(file -> PUZZLE_INPUT_FILE_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted(Comparator.naturalOrder())
+                    .flatMap(day -> Stream.of(1, 2).map(part -> new Task(
+                            year,
+                            day,
+                            part,
+                            inputDirectory.resolve("day-%d-puzzle-input".formatted(day)).toString())))
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BatchRunner() {}
+}
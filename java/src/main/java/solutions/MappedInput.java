@@ -0,0 +1,255 @@
+package solutions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of an input file that is mapped into memory using
+ * {@link FileChannel#map}. The puzzle inputs are plain ASCII, so each byte
+ * is exposed as a single char and no decoding or copying takes place.
+ * <p>
+ * Instead of materialising a String for every line, the input is traversed
+ * using a {@link LineCursor} which can be further split into fields using
+ * a {@link FieldCursor}. Both cursors are mutable and are meant to be reused
+ * while iterating, e.g.:
+ * <pre>
+ * LineCursor line = input.lines();
+ * while (line.next()) {
+ *     FieldCursor field = line.fields(' ');
+ *     while (field.next()) {
+ *         sum += field.parseInt();
+ *     }
+ * }
+ * </pre>
+ */
+public final class MappedInput implements CharSequence {
+    private final ByteBuffer buffer;
+
+    private MappedInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static MappedInput map(String inputFile) {
+        try (FileChannel channel = FileChannel.open(Path.of(inputFile), StandardOpenOption.READ)) {
+            assert channel.size() <= Integer.MAX_VALUE :
+                    "A single mapped buffer can address at most 2GB of input.";
+            // The mapping stays valid after the channel is closed.
+            return new MappedInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public byte byteAt(int index) {
+        return buffer.get(index);
+    }
+
+    @Override
+    public int length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) buffer.get(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new MappedInput(buffer.slice(start, end - start));
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length()];
+        buffer.get(0, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return Number of lines in the input, a trailing newline at the end of the
+     * file doesn't start a new line.
+     */
+    public int lineCount() {
+        int lines = 0;
+        for (int i = 0; i < length(); i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (length() > 0 && buffer.get(length() - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * @return Cursor positioned before the first line of the input.
+     */
+    public LineCursor lines() {
+        return new LineCursor();
+    }
+
+    /**
+     * Iterates over the lines of the input without allocating. The line
+     * terminator (either \n or \r\n) is not part of the line.
+     */
+    public final class LineCursor {
+        private int start = 0;
+        private int end = 0;
+        private int index = -1;
+
+        private LineCursor() {
+        }
+
+        /**
+         * @return true if the cursor moved onto the next line, false if the
+         * end of the input was reached.
+         */
+        public boolean next() {
+            int limit = buffer.limit();
+            int nextStart = 0;
+            if (index >= 0) {
+                // Skip over the terminator of the current line.
+                nextStart = end;
+                if (nextStart < limit && buffer.get(nextStart) == '\r') {
+                    nextStart++;
+                }
+                nextStart++;
+            }
+            if (nextStart >= limit) {
+                return false;
+            }
+            int nextEnd = nextStart;
+            while (nextEnd < limit && buffer.get(nextEnd) != '\n') {
+                nextEnd++;
+            }
+            if (nextEnd > nextStart && buffer.get(nextEnd - 1) == '\r') {
+                nextEnd--;
+            }
+            start = nextStart;
+            end = nextEnd;
+            index++;
+            return true;
+        }
+
+        /**
+         * @return Zero-based index of the current line.
+         */
+        public int index() {
+            return index;
+        }
+
+        public int length() {
+            return end - start;
+        }
+
+        public byte byteAt(int column) {
+            assert 0 <= column && column < length() : "Column needs to be inside of the line.";
+            return buffer.get(start + column);
+        }
+
+        public char charAt(int column) {
+            return (char) byteAt(column);
+        }
+
+        public boolean isEmpty() {
+            return length() == 0;
+        }
+
+        public CharSequence line() {
+            return subSequence(start, end);
+        }
+
+        public FieldCursor fields(char separator) {
+            return new FieldCursor(start, end, separator);
+        }
+
+        @Override
+        public String toString() {
+            return line().toString();
+        }
+    }
+
+    /**
+     * Iterates over the fields of a single line that are delimited by a
+     * separator character. Repeated separators are treated as one, so that
+     * e.g. columns aligned with multiple spaces are handled correctly.
+     */
+    public final class FieldCursor {
+        private final int lineEnd;
+        private final char separator;
+        private int start;
+        private int end;
+
+        private FieldCursor(int lineStart, int lineEnd, char separator) {
+            this.lineEnd = lineEnd;
+            this.separator = separator;
+            this.start = lineStart;
+            this.end = lineStart;
+        }
+
+        /**
+         * @return true if the cursor moved onto the next field, false if there
+         * are no more fields on the line.
+         */
+        public boolean next() {
+            int nextStart = end;
+            while (nextStart < lineEnd && buffer.get(nextStart) == separator) {
+                nextStart++;
+            }
+            if (nextStart >= lineEnd) {
+                return false;
+            }
+            int nextEnd = nextStart;
+            while (nextEnd < lineEnd && buffer.get(nextEnd) != separator) {
+                nextEnd++;
+            }
+            start = nextStart;
+            end = nextEnd;
+            return true;
+        }
+
+        public int length() {
+            return end - start;
+        }
+
+        public CharSequence field() {
+            return subSequence(start, end);
+        }
+
+        public int parseInt() {
+            return Math.toIntExact(parseLong());
+        }
+
+        /**
+         * Parses the current field as a decimal number directly from the mapped
+         * bytes, the field can optionally start with a sign.
+         */
+        public long parseLong() {
+            int i = start;
+            boolean negative = buffer.get(i) == '-';
+            if (negative || buffer.get(i) == '+') {
+                i++;
+            }
+            assert i < end : "A number needs to have at least one digit.";
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                assert 0 <= digit && digit <= 9 : "Unexpected character in a number: '%s'".formatted(
+                        field());
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        @Override
+        public String toString() {
+            return field().toString();
+        }
+    }
+}
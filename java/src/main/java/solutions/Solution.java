@@ -1,6 +1,41 @@
 package solutions;
 
-public interface Solution {
-    void firstPart(String inputFile);
-    void secondPart(String inputFile);
+/**
+ * Common interface of all puzzle solutions.
+ * <p>
+ * The solve methods compute and return the answer to the respective part of
+ * the puzzle. They don't print anything unless the verbose mode is enabled
+ * (see {@link Utils#VERBOSE}) which allows for running them from benchmarks
+ * and batch runs without paying for the console I/O.
+ *
+ * @param <T1> type of the answer to the first part of the puzzle
+ * @param <T2> type of the answer to the second part of the puzzle
+ */
+public interface Solution<T1, T2> {
+    T1 solveFirstPart(String inputFile);
+
+    T2 solveSecondPart(String inputFile);
+
+    default void firstPart(String inputFile) {
+        printAnswer(solveFirstPart(inputFile));
+    }
+
+    default void secondPart(String inputFile) {
+        printAnswer(solveSecondPart(inputFile));
+    }
+
+    default SolutionResult<T1> runFirstPart(String inputFile) {
+        return SolutionResult.timed(() -> solveFirstPart(inputFile));
+    }
+
+    default SolutionResult<T2> runSecondPart(String inputFile) {
+        return SolutionResult.timed(() -> solveSecondPart(inputFile));
+    }
+
+    private static void printAnswer(Object answer) {
+        // Some puzzles (e.g. the second part of day 25) don't have an answer.
+        if (answer != null) {
+            System.out.println(answer);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package solutions;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answer to a part of a puzzle together with the time it took to compute it.
+ *
+ * @param answer  value returned by the solution, can be null if the puzzle part has no answer.
+ * @param elapsed wall-clock time spent computing the answer, empty if it wasn't measured.
+ */
+public record SolutionResult<T>(T answer, Optional<Duration> elapsed) {
+    public static <T> SolutionResult<T> timed(Supplier<T> solve) {
+        long start = System.nanoTime();
+        T answer = solve.get();
+        return new SolutionResult<>(answer, Optional.of(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    @Override
+    public String toString() {
+        return elapsed.map(duration -> "%s (%d ms)".formatted(answer, duration.toMillis()))
+                .orElseGet(() -> String.valueOf(answer));
+    }
+}
@@ -6,6 +6,17 @@ import java.lang.reflect.InvocationTargetException;
 
 public class SolutionRunner {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("batch")) {
+            assert (args.length == 2 || args.length == 3) :
+                    "You need to specify a manifest file or an input directory and optionally the "
+                    + "number of threads";
+            int threads = args.length == 3
+                    ? Integer.parseInt(args[2])
+                    : Runtime.getRuntime().availableProcessors();
+            BatchRunner.run(args[1], threads);
+            return;
+        }
+
         assert (args.length == 4) :
                 "You need to specify the year, day, puzzle part and a path to the input file";
 
@@ -14,19 +25,26 @@ public class SolutionRunner {
         int part = Integer.parseInt(args[2]);
         String inputFile = args[3];
 
-        Solution solution;
+        Solution<?, ?> solution = instantiateSolution(year, day);
+
+        SolutionResult<?> result = part == 1 ? solution.runFirstPart(inputFile)
+                : solution.runSecondPart(inputFile);
+
+        if (result.answer() != null) {
+            System.out.println(result.answer());
+        }
+        if (Utils.VERBOSE) {
+            System.out.printf("Solved in %d ms\n", result.elapsed().get().toMillis());
+        }
+    }
+
+    static Solution<?, ?> instantiateSolution(int year, int day) {
         try {
-            solution = (Solution) Class.forName("solutions.year%d.Day%d".formatted(year, day))
+            return (Solution<?, ?>) Class.forName("solutions.year%d.Day%d".formatted(year, day))
                     .getDeclaredConstructor().newInstance();
         } catch (ClassNotFoundException | InvocationTargetException | InstantiationException |
                  IllegalAccessException | NoSuchMethodException e) {
             throw new RuntimeException(e);
         }
-
-        if (part == 1) {
-            solution.firstPart(inputFile);
-        } else {
-            solution.secondPart(inputFile);
-        }
     }
 }
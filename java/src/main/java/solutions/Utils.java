@@ -10,6 +10,13 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Utils {
+    /**
+     * When set, the solutions print their diagnostics (parsed input, intermediate
+     * state, progress) to stdout while computing the answer. It is read from
+     * the VERBOSE environment variable and is off by default.
+     */
+    public static final boolean VERBOSE = Boolean.parseBoolean(System.getenv("VERBOSE"));
+
     public static  Stream<String> readInputAsStream(String inputFile) {
         try {
             var reader = new BufferedReader(new FileReader(inputFile));
@@ -19,6 +26,15 @@ public class Utils {
         }
     }
 
+    /**
+     * @return The input file mapped into memory. Unlike {@link #readInputAsStream(String)}
+     * this doesn't decode the input into per-line Strings, it should be preferred for
+     * large inputs and for grids that are parsed character by character.
+     */
+    public static MappedInput mapInput(String inputFile) {
+        return MappedInput.map(inputFile);
+    }
+
     public static <T> List<List<T>> getMutableGridCopy(List<List<T>> grid) {
         List<List<T>> copy = new ArrayList<>();
         for (final var row : grid) {
@@ -0,0 +1,302 @@
+package solutions.common;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Single-source shortest paths over a graph with non-negative integer edge weights
+ * whose nodes are numbered from 0 until {@link Graph#nodeCount()}.
+ * <p>
+ * The nodes waiting to be settled are kept in an indexed binary heap, so lowering
+ * the cost of a node that is already queued moves it up in place instead of adding
+ * a duplicate entry. Costs and parents are stored in int arrays indexed by the node,
+ * which are reused when the search is run again on the same instance.
+ * <p>
+ * When all parents are tracked, every predecessor through which a node can be reached
+ * at its lowest cost is recorded, which allows for finding all of the shortest paths
+ * and not just one of them, see {@link #nodesOnShortestPaths(int)}.
+ */
+public final class Dijkstra {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(int target, int weight);
+    }
+
+    public interface Graph {
+        int nodeCount();
+
+        /**
+         * Calls the consumer for each of the edges leaving the given node.
+         */
+        void forEachEdge(int node, EdgeConsumer consumer);
+    }
+
+    private final Graph graph;
+    private final boolean trackAllParents;
+    private final int[] costs;
+    private final BitSet settled;
+    private final IndexedHeap queue;
+
+    // Parents are kept as singly linked lists stored in parallel arrays, parentHead
+    // points at the first link of each node and parentNext chains the remaining ones.
+    private final int[] parentHead;
+    private int[] parentNode;
+    private int[] parentNext;
+    private int parentLinks;
+
+    private IntConsumer settledListener = node -> {
+    };
+
+    // The node whose edges are being relaxed, kept in fields so that a single
+    // edge consumer can be reused instead of capturing them in a new lambda.
+    private int currentNode;
+    private int currentCost;
+    private final EdgeConsumer relaxEdge = this::relax;
+
+    public Dijkstra(Graph graph, boolean trackAllParents) {
+        this.graph = graph;
+        this.trackAllParents = trackAllParents;
+        int nodeCount = graph.nodeCount();
+        this.costs = new int[nodeCount];
+        this.settled = new BitSet(nodeCount);
+        this.queue = new IndexedHeap(costs);
+        this.parentHead = new int[nodeCount];
+        this.parentNode = new int[Math.max(16, nodeCount)];
+        this.parentNext = new int[parentNode.length];
+    }
+
+    /**
+     * Registers a callback that is called each time a node is settled, i.e. once its
+     * final cost is known. It is meant for visualising the progress of the search.
+     */
+    public void setSettledListener(IntConsumer settledListener) {
+        this.settledListener = settledListener;
+    }
+
+    public void run(int source) {
+        run(source, NONE);
+    }
+
+    /**
+     * Runs the search from the source, stopping once the cost of the target is final.
+     * <p>
+     * Without tracking all parents that is as soon as the target is settled. Otherwise the
+     * search goes on until the next node in the queue costs more than the target, because
+     * with zero-weight edges a parent of the target can have the same cost and be settled
+     * after it.
+     */
+    public void run(int source, int target) {
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(parentHead, NONE);
+        settled.clear();
+        queue.clear();
+        parentLinks = 0;
+
+        costs[source] = 0;
+        queue.insert(source);
+        boolean targetSettled = false;
+        while (!queue.isEmpty()) {
+            if (targetSettled && costs[queue.peek()] > costs[target]) {
+                return;
+            }
+            int node = queue.poll();
+            settled.set(node);
+            settledListener.accept(node);
+            if (node == target) {
+                if (!trackAllParents) {
+                    return;
+                }
+                targetSettled = true;
+            }
+            currentNode = node;
+            currentCost = costs[node];
+            graph.forEachEdge(node, relaxEdge);
+        }
+    }
+
+    private void relax(int nb, int weight) {
+        assert weight >= 0 : "Dijkstra's algorithm only works with non-negative edge weights.";
+        int costThroughNode = currentCost + weight;
+        if (settled.get(nb)) {
+            // A settled node can still be reached at its cost over a zero-weight edge.
+            if (costThroughNode == costs[nb] && trackAllParents) {
+                addParent(nb, currentNode);
+            }
+            return;
+        }
+        if (costThroughNode < costs[nb]) {
+            boolean queued = costs[nb] != UNREACHABLE;
+            costs[nb] = costThroughNode;
+            parentHead[nb] = NONE;
+            addParent(nb, currentNode);
+            if (queued) {
+                queue.decreaseKey(nb);
+            } else {
+                queue.insert(nb);
+            }
+        } else if (costThroughNode == costs[nb] && trackAllParents) {
+            addParent(nb, currentNode);
+        }
+    }
+
+    private void addParent(int node, int parent) {
+        if (parentLinks == parentNode.length) {
+            parentNode = Arrays.copyOf(parentNode, 2 * parentLinks);
+            parentNext = Arrays.copyOf(parentNext, 2 * parentLinks);
+        }
+        parentNode[parentLinks] = parent;
+        parentNext[parentLinks] = parentHead[node];
+        parentHead[node] = parentLinks++;
+    }
+
+    /**
+     * @return Cost of the cheapest path from the source to the node or
+     * {@link #UNREACHABLE} if no path has been found.
+     */
+    public int cost(int node) {
+        return costs[node];
+    }
+
+    public boolean isSettled(int node) {
+        return settled.get(node);
+    }
+
+    public boolean isQueued(int node) {
+        return costs[node] != UNREACHABLE && !settled.get(node);
+    }
+
+    /**
+     * @return The node preceding the given one on a shortest path or -1 for the
+     * source and the nodes that haven't been reached.
+     */
+    public int parent(int node) {
+        int link = parentHead[node];
+        return link == NONE ? NONE : parentNode[link];
+    }
+
+    public void forEachParent(int node, IntConsumer consumer) {
+        for (int link = parentHead[node]; link != NONE; link = parentNext[link]) {
+            consumer.accept(parentNode[link]);
+        }
+    }
+
+    /**
+     * @return All nodes that lie on at least one of the shortest paths from the source
+     * to the target, including both of them. Without tracking all parents this is just
+     * the nodes of a single shortest path.
+     */
+    public BitSet nodesOnShortestPaths(int target) {
+        BitSet onPath = new BitSet(costs.length);
+        if (costs[target] == UNREACHABLE) {
+            return onPath;
+        }
+        int[] stack = new int[costs.length];
+        int size = 0;
+        stack[size++] = target;
+        onPath.set(target);
+        while (size > 0) {
+            int node = stack[--size];
+            for (int link = parentHead[node]; link != NONE; link = parentNext[link]) {
+                int parent = parentNode[link];
+                if (!onPath.get(parent)) {
+                    onPath.set(parent);
+                    stack[size++] = parent;
+                }
+            }
+        }
+        return onPath;
+    }
+
+    /**
+     * Binary min-heap of node ids ordered by their entry in the shared cost array. The
+     * position of each node in the heap is tracked so that its key can be decreased
+     * without searching for it.
+     */
+    private static final class IndexedHeap {
+        private final int[] keys;
+        private final int[] heap;
+        private final int[] positions;
+        private int size;
+
+        IndexedHeap(int[] keys) {
+            this.keys = keys;
+            this.heap = new int[keys.length];
+            this.positions = new int[keys.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void insert(int node) {
+            heap[size] = node;
+            positions[node] = size;
+            siftUp(size++);
+        }
+
+        void decreaseKey(int node) {
+            siftUp(positions[node]);
+        }
+
+        int peek() {
+            assert size > 0 : "Cannot peek into an empty heap.";
+            return heap[0];
+        }
+
+        int poll() {
+            assert size > 0 : "Cannot poll an empty heap.";
+            int top = heap[0];
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int position) {
+            int node = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (keys[heap[parent]] <= keys[node]) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                positions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = node;
+            positions[node] = position;
+        }
+
+        private void siftDown(int position) {
+            int node = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[node] <= keys[heap[child]]) {
+                    break;
+                }
+                heap[position] = heap[child];
+                positions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = node;
+            positions[node] = position;
+        }
+    }
+}
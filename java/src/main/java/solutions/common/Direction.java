@@ -1,7 +1,5 @@
 package solutions.common;
 
-import java.util.List;
-
 public enum Direction {
     UP, DOWN, LEFT, RIGHT;
 
@@ -16,7 +14,7 @@ public enum Direction {
     }
 
     public boolean isHorizontal() {
-        return List.of(LEFT, RIGHT).contains(this);
+        return this == LEFT || this == RIGHT;
     }
 
     public boolean isOpposite(Direction direction) {
@@ -0,0 +1,144 @@
+package solutions.common;
+
+import solutions.MappedInput;
+
+import java.util.function.Function;
+
+/**
+ * {@link Grid} of enum constants packed into a byte array, each cell holds
+ * the ordinal of its constant. Reading a cell only indexes into the array of
+ * constants, so no boxing or per-cell objects are involved.
+ *
+ * @param <E> type of the cells, it can have at most 128 constants.
+ */
+public final class EnumGrid<E extends Enum<E>> extends Grid {
+    private final E[] constants;
+    private final byte[] cells;
+
+    private EnumGrid(int width, int height, E[] constants, byte[] cells) {
+        super(width, height);
+        assert constants.length <= Byte.MAX_VALUE + 1 :
+                "The ordinals of the enum constants need to fit into a byte.";
+        this.constants = constants;
+        this.cells = cells;
+    }
+
+    public EnumGrid(int width, int height, Class<E> type) {
+        this(width, height, type.getEnumConstants(), new byte[width * height]);
+    }
+
+    /**
+     * Parses a grid where each character of the input represents one cell.
+     * All lines of the input need to have the same length.
+     */
+    public static <E extends Enum<E>> EnumGrid<E> parse(
+            MappedInput input,
+            Class<E> type,
+            Function<Character, E> fromChar
+    ) {
+        MappedInput.LineCursor line = input.lines();
+        EnumGrid<E> grid = null;
+        while (line.next()) {
+            if (grid == null) {
+                grid = new EnumGrid<>(line.length(), input.lineCount(), type);
+            }
+            assert line.length() == grid.width : "All rows of the grid need to have the same length.";
+            int rowStart = grid.index(0, line.index());
+            for (int x = 0; x < line.length(); x++) {
+                grid.cells[rowStart + x] = (byte) fromChar.apply(line.charAt(x)).ordinal();
+            }
+        }
+        assert grid != null : "The grid needs to have at least one row.";
+        return grid;
+    }
+
+    public E get(int index) {
+        return constants[cells[index]];
+    }
+
+    public E get(int x, int y) {
+        return get(index(x, y));
+    }
+
+    public E get(Point point) {
+        assert isInside(point) : "We can only index into the grid when the location is inside of it.";
+        return get(index(point));
+    }
+
+    public void set(int index, E value) {
+        cells[index] = (byte) value.ordinal();
+    }
+
+    public void set(int x, int y, E value) {
+        set(index(x, y), value);
+    }
+
+    public void set(Point point, E value) {
+        assert isInside(point) : "We can only index into the grid when the location is inside of it.";
+        set(index(point), value);
+    }
+
+    /**
+     * @return Index of the first cell holding the given value in row-major order
+     * or -1 if there is no such cell.
+     */
+    public int indexOf(E value) {
+        byte ordinal = (byte) value.ordinal();
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int count(E value) {
+        byte ordinal = (byte) value.ordinal();
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell == ordinal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void replaceAll(E value, E replacement) {
+        byte ordinal = (byte) value.ordinal();
+        byte replacementOrdinal = (byte) replacement.ordinal();
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == ordinal) {
+                cells[i] = replacementOrdinal;
+            }
+        }
+    }
+
+    public EnumGrid<E> copy() {
+        byte[] cellsCopy = new byte[cells.length];
+        System.arraycopy(cells, 0, cellsCopy, 0, cells.length);
+        return new EnumGrid<>(width, height, constants, cellsCopy);
+    }
+
+    /**
+     * Overwrites the cells of this grid with the ones of the other grid which
+     * needs to have the same dimensions. This allows for reusing a single scratch
+     * grid instead of allocating a new copy.
+     */
+    public void copyFrom(EnumGrid<E> other) {
+        assert other.width == width && other.height == height :
+                "Only grids of the same dimensions can be copied into each other.";
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(size() + height);
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0 && i % width == 0) {
+                builder.append('\n');
+            }
+            builder.append(get(i));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package solutions.common;
+
+/**
+ * Shape of a rectangular grid whose cells are stored in a single flat array
+ * in row-major order. The cell at (x, y) lives at index y * width + x, so
+ * neighbouring cells on the same row are next to each other in memory.
+ * <p>
+ * The subclasses provide the actual storage, see {@link EnumGrid} and
+ * {@link IntGrid}. Cells can be addressed either by their coordinates, by a
+ * {@link Point} or directly by their index. The index-based accessors are the
+ * cheapest ones and are meant to be used in the hot loops of the solutions.
+ */
+public abstract class Grid {
+    /**
+     * Cached copy of {@link Direction#values()} as that method allocates a new
+     * array on every call.
+     */
+    public static final Direction[] DIRECTIONS = Direction.values();
+
+    protected final int width;
+    protected final int height;
+
+    protected Grid(int width, int height) {
+        assert width >= 0 && height >= 0 : "The dimensions of the grid cannot be negative.";
+        this.width = width;
+        this.height = height;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int size() {
+        return width * height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int index(Point point) {
+        return index(point.x(), point.y());
+    }
+
+    public int x(int index) {
+        return index % width;
+    }
+
+    public int y(int index) {
+        return index / width;
+    }
+
+    public Point pointAt(int index) {
+        return new Point(x(index), y(index));
+    }
+
+    public boolean isInside(int x, int y) {
+        return 0 <= x && x < width && 0 <= y && y < height;
+    }
+
+    public boolean isInside(Point point) {
+        return isInside(point.x(), point.y());
+    }
+
+    /**
+     * @return Index of the cell adjacent to the cell at the given index in the
+     * given direction or -1 if that cell would be outside of the grid.
+     */
+    public int neighbour(int index, Direction direction) {
+        int x = x(index);
+        int y = y(index);
+        return switch (direction) {
+            case UP -> y > 0 ? index - width : -1;
+            case DOWN -> y < height - 1 ? index + width : -1;
+            case LEFT -> x > 0 ? index - 1 : -1;
+            case RIGHT -> x < width - 1 ? index + 1 : -1;
+        };
+    }
+
+    /**
+     * Allocation-free alternative to {@link Point#getNeighbours()} meant to be called
+     * in a loop over k from 0 until connectivity.size().
+     *
+     * @return Index of the k-th neighbour of the cell at the given index or -1 if that
+     * neighbour would be outside of the grid.
+     */
+    public int neighbour(int index, Point.Connectivity connectivity, int k) {
+        int x = x(index) + connectivity.dx(k);
+        int y = y(index) + connectivity.dy(k);
+        return isInside(x, y) ? index(x, y) : -1;
+    }
+}
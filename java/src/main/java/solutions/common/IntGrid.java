@@ -0,0 +1,94 @@
+package solutions.common;
+
+import solutions.MappedInput;
+
+import java.util.Arrays;
+
+/**
+ * {@link Grid} of int values, e.g. heights, costs or region identifiers.
+ */
+public final class IntGrid extends Grid {
+    private final int[] cells;
+
+    private IntGrid(int width, int height, int[] cells) {
+        super(width, height);
+        this.cells = cells;
+    }
+
+    public IntGrid(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+
+    public IntGrid(int width, int height, int initialValue) {
+        this(width, height);
+        fill(initialValue);
+    }
+
+    /**
+     * Parses a grid where each character of the input is a single decimal digit.
+     */
+    public static IntGrid parseDigits(MappedInput input) {
+        MappedInput.LineCursor line = input.lines();
+        IntGrid grid = null;
+        while (line.next()) {
+            if (grid == null) {
+                grid = new IntGrid(line.length(), input.lineCount());
+            }
+            assert line.length() == grid.width : "All rows of the grid need to have the same length.";
+            int rowStart = grid.index(0, line.index());
+            for (int x = 0; x < line.length(); x++) {
+                grid.cells[rowStart + x] = line.byteAt(x) - '0';
+            }
+        }
+        assert grid != null : "The grid needs to have at least one row.";
+        return grid;
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int get(int x, int y) {
+        return cells[index(x, y)];
+    }
+
+    public int get(Point point) {
+        assert isInside(point) : "We can only index into the grid when the location is inside of it.";
+        return cells[index(point)];
+    }
+
+    public void set(int index, int value) {
+        cells[index] = value;
+    }
+
+    public void set(int x, int y, int value) {
+        cells[index(x, y)] = value;
+    }
+
+    public void set(Point point, int value) {
+        assert isInside(point) : "We can only index into the grid when the location is inside of it.";
+        cells[index(point)] = value;
+    }
+
+    public void fill(int value) {
+        Arrays.fill(cells, value);
+    }
+
+    public IntGrid copy() {
+        int[] cellsCopy = new int[cells.length];
+        System.arraycopy(cells, 0, cellsCopy, 0, cells.length);
+        return new IntGrid(width, height, cellsCopy);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0 && i % width == 0) {
+                builder.append('\n');
+            }
+            builder.append(cells[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package solutions.common;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-negative long keys to long values, stored in two parallel arrays
+ * with open addressing and linear probing. Nothing is boxed and clearing the map keeps
+ * its arrays, so a pair of maps can be swapped back and forth without allocating.
+ * <p>
+ * Entries are iterated by slot, e.g.:
+ * <pre>
+ * for (int slot = 0; slot < map.capacity(); slot++) {
+ *     if (map.isOccupied(slot)) {
+ *         total += map.valueAt(slot);
+ *     }
+ * }
+ * </pre>
+ */
+public final class LongLongMap {
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries that fit without resizing.
+     */
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) * 2;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(long key) {
+        // Mixing step of SplitMix64, so that keys sharing their low bits are spread out.
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (key ^ (key >>> 33));
+    }
+
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return Value of the key or the default if the map doesn't contain it.
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        assert key >= 0 : "Keys cannot be negative.";
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? defaultValue : values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        assert key >= 0 : "Keys cannot be negative.";
+        return keys[slotOf(key)] != EMPTY;
+    }
+
+    public void put(long key, long value) {
+        assert key >= 0 : "Keys cannot be negative.";
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = value;
+            onInsert();
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Adds the delta to the value of the key, which starts at zero if the key is new.
+     */
+    public void add(long key, long delta) {
+        assert key >= 0 : "Keys cannot be negative.";
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            onInsert();
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    private void onInsert() {
+        // Keep the load factor at most one half, so the probe sequences stay short.
+        if (++size * 2 > keys.length) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            allocate(2 * keys.length);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    int newSlot = slotOf(oldKeys[slot]);
+                    keys[newSlot] = oldKeys[slot];
+                    values[newSlot] = oldValues[slot];
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public long valueAt(int slot) {
+        return values[slot];
+    }
+}
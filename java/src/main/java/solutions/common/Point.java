@@ -118,6 +118,36 @@ public record Point(int x, int y) {
         };
     }
 
+    /**
+     * Table of coordinate offsets of the neighbours of a cell. Iterating over it with
+     * an index, e.g. {@code x + FOUR.dx(k)}, visits all neighbours without allocating.
+     * The offsets are the orthogonal neighbours in the same order as
+     * {@link #getNeighbours()}.
+     */
+    public enum Connectivity {
+        FOUR(new int[]{0, 1, 0, -1}, new int[]{-1, 0, 1, 0});
+
+        private final int[] dx;
+        private final int[] dy;
+
+        Connectivity(int[] dx, int[] dy) {
+            this.dx = dx;
+            this.dy = dy;
+        }
+
+        public int size() {
+            return dx.length;
+        }
+
+        public int dx(int k) {
+            return dx[k];
+        }
+
+        public int dy(int k) {
+            return dy[k];
+        }
+    }
+
     public record BigPoint(long x, long y) {
     }
 }
@@ -0,0 +1,63 @@
+package solutions.common;
+
+/**
+ * Disjoint sets over the elements 0 until size, stored in int arrays. The sets are
+ * merged by size and the paths are halved while looking up the representative, so
+ * a sequence of operations runs in nearly linear time.
+ */
+public final class UnionFind {
+    private final int[] parents;
+    private final int[] sizes;
+
+    public UnionFind(int size) {
+        this.parents = new int[size];
+        this.sizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+    }
+
+    /**
+     * @return Representative element of the set containing the given element.
+     */
+    public int find(int element) {
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets of the two elements.
+     *
+     * @return Representative of the merged set.
+     */
+    public int union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return firstRoot;
+        }
+        if (sizes[firstRoot] < sizes[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+        return firstRoot;
+    }
+
+    public boolean connected(int first, int second) {
+        return find(first) == find(second);
+    }
+
+    /**
+     * @return Number of elements in the set containing the given element.
+     */
+    public int sizeOf(int element) {
+        return sizes[find(element)];
+    }
+}
@@ -1,63 +1,157 @@
 package solutions.year2024;
 
-import com.google.common.collect.Streams;
-import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Arrays;
+
+public class Day1 implements Solution<Long, Long> {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    // Above this the histogram would take more memory than sorting both lists.
+    private static final int MAX_HISTOGRAM_SIZE = 1 << 24;
 
-public class Day1 implements Solution {
     @Override
-    public void firstPart(String inputFile) {
-        Pair<List<Integer>, List<Integer>> inputLists = parseInputLists(
-                Utils.readInputAsStream(inputFile));
-        var sortedInputLists = Pair.of(inputLists.getLeft().stream().sorted().toList(),
-                inputLists.getRight().stream().sorted().toList());
-
-        int difference = Streams.zip(sortedInputLists.getLeft().stream(),
-                        sortedInputLists.getRight().stream(), Pair::of)
-                .map(pair -> Math.abs(pair.getLeft() - pair.getRight()))
-                .reduce(Integer::sum)
-                .get();
-
-        System.out.printf("Difference: %s\n", difference);
+    public Long solveFirstPart(String inputFile) {
+        LocationLists inputLists = parseInputLists(Utils.mapInput(inputFile));
+        int[] left = radixSort(inputLists.left());
+        int[] right = radixSort(inputLists.right());
+
+        long difference = 0;
+        for (int i = 0; i < left.length; i++) {
+            difference += Math.abs(left[i] - right[i]);
+        }
+
+        if (Utils.VERBOSE) {
+            System.out.printf("Difference: %s\n", difference);
+        }
+        return difference;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        Pair<List<Integer>, List<Integer>> inputLists = parseInputLists(
-                Utils.readInputAsStream(inputFile));
-        Map<Integer, Integer> counts = new HashMap<>();
-        for (int x : inputLists.getLeft()) {
-            counts.put(x, (int) inputLists.getRight().stream().filter(y -> y == x).count());
-        }
-        int similarityScore = counts.entrySet()
-                .stream()
-                .map(entry -> entry.getKey() * entry.getValue())
-                .reduce(Integer::sum)
-                .get();
-
-        System.out.printf("Similarity score: %s\n", similarityScore);
+    public Long solveSecondPart(String inputFile) {
+        LocationLists inputLists = parseInputLists(Utils.mapInput(inputFile));
+        int maxId = Arrays.stream(inputLists.right()).max().orElse(0);
+
+        long similarityScore = maxId < MAX_HISTOGRAM_SIZE
+                ? similarityFromHistogram(inputLists, maxId)
+                : similarityFromSortedLists(inputLists);
+
+        if (Utils.VERBOSE) {
+            System.out.printf("Similarity score: %s\n", similarityScore);
+        }
+        return similarityScore;
     }
 
+    /**
+     * Counts how many times each location ID occurs in the right list in a single pass,
+     * after which each entry of the left list is a single lookup.
+     */
+    private static long similarityFromHistogram(LocationLists inputLists, int maxId) {
+        int[] counts = new int[maxId + 1];
+        for (int id : inputLists.right()) {
+            counts[id]++;
+        }
+        long similarityScore = 0;
+        for (int id : inputLists.left()) {
+            if (id <= maxId) {
+                similarityScore += (long) id * counts[id];
+            }
+        }
+        return similarityScore;
+    }
 
-    private Pair<List<Integer>, List<Integer>> parseInputLists(Stream<String> input) {
-        List<Integer> left = new ArrayList<>();
-        List<Integer> right = new ArrayList<>();
+    /**
+     * Walks both sorted lists in lockstep, so that each run of equal IDs in the left list
+     * is matched against the run of the same ID in the right list.
+     */
+    private static long similarityFromSortedLists(LocationLists inputLists) {
+        int[] left = radixSort(inputLists.left());
+        int[] right = radixSort(inputLists.right());
+        long similarityScore = 0;
+        int j = 0;
+        for (int i = 0; i < left.length; ) {
+            int id = left[i];
+            int leftRunEnd = i;
+            while (leftRunEnd < left.length && left[leftRunEnd] == id) {
+                leftRunEnd++;
+            }
+            while (j < right.length && right[j] < id) {
+                j++;
+            }
+            int rightRunStart = j;
+            while (j < right.length && right[j] == id) {
+                j++;
+            }
+            similarityScore += (long) id * (j - rightRunStart) * (leftRunEnd - i);
+            i = leftRunEnd;
+        }
+        return similarityScore;
+    }
+
+    /**
+     * Least significant digit radix sort of non-negative ints, taking 8 bits at a time.
+     * Each pass is a stable counting sort, and passes above the highest set bit of the
+     * largest value are skipped.
+     *
+     * @return A sorted copy of the values.
+     */
+    private static int[] radixSort(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            assert value >= 0 : "Location IDs cannot be negative.";
+            max = Math.max(max, value);
+        }
+        int[] source = values.clone();
+        int[] target = new int[values.length];
+        int[] counts = new int[RADIX];
+        for (int shift = 0; shift < Integer.SIZE && (max >>> shift) > 0; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int value : source) {
+                counts[(value >>> shift) & (RADIX - 1)]++;
+            }
+            int position = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = counts[digit];
+                counts[digit] = position;
+                position += count;
+            }
+            for (int value : source) {
+                target[counts[(value >>> shift) & (RADIX - 1)]++] = value;
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    private record LocationLists(int[] left, int[] right) {
+    }
 
-        input.forEach(line -> {
-            var parts = line.split("   ");
-            assert (parts.length == 2) : "Each line in the input should contain entries " + "for "
-                    + "both lists.";
-            left.add(Integer.parseInt(parts[0]));
-            right.add(Integer.parseInt(parts[1]));
-        });
-        return Pair.of(left, right);
+    private LocationLists parseInputLists(MappedInput input) {
+        // Counting the lines takes a pass over the whole input, so it is only done once.
+        int lineCount = input.lineCount();
+        int[] left = new int[lineCount];
+        int[] right = new int[lineCount];
+        int count = 0;
+
+        MappedInput.LineCursor line = input.lines();
+        while (line.next()) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            MappedInput.FieldCursor field = line.fields(' ');
+            boolean hasLeft = field.next();
+            assert hasLeft : "Each line in the input should contain entries for both lists.";
+            left[count] = field.parseInt();
+            boolean hasRight = field.next();
+            assert hasRight : "Each line in the input should contain entries for both lists.";
+            right[count] = field.parseInt();
+            count++;
+        }
+        return new LocationLists(Arrays.copyOf(left, count), Arrays.copyOf(right, count));
     }
 
 }
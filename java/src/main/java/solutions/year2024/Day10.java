@@ -1,197 +1,216 @@
 package solutions.year2024;
 
-import com.google.common.collect.Streams;
-import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.lang3.tuple.Triple;
 import solutions.Solution;
 import solutions.Utils;
+import solutions.common.IntGrid;
 import solutions.common.Point;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
+
+public class Day10 implements Solution<Long, Long> {
+    private static final int TRAILHEAD_HEIGHT = 0;
+    private static final int PEAK_HEIGHT = 9;
 
-public class Day10 implements Solution {
     @Override
-    public void firstPart(String inputFile) {
-        List<List<HikingTrailPart>> topographicMap = readTopographicMap(Utils.readInputAsStream(
-                inputFile));
-        System.out.println("Topographic map: ");
-        System.out.println(printTopographicMap(topographicMap));
-        Set<HikingTrailPart> trailheads = topographicMap.stream()
-                .map(row -> row.stream().filter(HikingTrailPart::isTrailHead).toList())
-                .flatMap(List::stream)
-                .collect(Collectors.toSet());
-
-        System.out.println("Trailhead locations: ");
-        System.out.println(trailheads.stream().map(HikingTrailPart::position).toList());
-
-        int totalScore = 0;
-        for (final HikingTrailPart trailhead : trailheads) {
-            System.out.println("Exploring trailhead at: " + trailhead.position);
-            final Pair<Integer, List<List<HikingTrailPart>>> trailheadScoreAndTraceMap =
-                    exploreTrailhead(
-                    trailhead,
-                    topographicMap);
-            int trailHeadScore = trailheadScoreAndTraceMap.getLeft();
-            System.out.printf("Trailhead score: %d%n", trailHeadScore);
+    public Long solveFirstPart(String inputFile) {
+        IntGrid topographicMap = IntGrid.parseDigits(Utils.mapInput(inputFile));
+        Trails trails = exploreTrails(topographicMap);
+
+        long totalScore = 0;
+        for (final int trailhead : trails.trailheads()) {
+            int trailHeadScore = trails.score(trailhead);
+            if (Utils.VERBOSE) {
+                System.out.printf("Trailhead at %s, score: %d%n",
+                                  topographicMap.pointAt(trailhead),
+                                  trailHeadScore);
+            }
             totalScore += trailHeadScore;
         }
 
-        System.out.printf("Total score: %d\n", totalScore);
+        if (Utils.VERBOSE) {
+            System.out.printf("Total score: %d\n", totalScore);
+        }
+        return totalScore;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        List<List<HikingTrailPart>> topographicMap = readTopographicMap(Utils.readInputAsStream(
-                inputFile));
-        System.out.println("Topographic map: ");
-        System.out.println(printTopographicMap(topographicMap));
-        Set<HikingTrailPart> trailheads = topographicMap.stream()
-                .map(row -> row.stream().filter(HikingTrailPart::isTrailHead).toList())
-                .flatMap(List::stream)
-                .collect(Collectors.toSet());
-
-        System.out.println("Trailhead locations: ");
-        System.out.println(trailheads.stream().map(HikingTrailPart::position).toList());
-
-        int totalScore = 0;
-        for (final HikingTrailPart trailhead : trailheads) {
-            System.out.println("Exploring trailhead at: " + trailhead.position);
-            final Pair<Integer, List<List<HikingTrailPart>>> trailheadScoreAndTraceMap =
-                    exploreTrailheadDistinctTrails(
-                    trailhead,
-                    topographicMap);
-            int trailHeadScore = trailheadScoreAndTraceMap.getLeft();
-            System.out.printf("Trailhead score: %d%n", trailHeadScore);
-            totalScore += trailHeadScore;
+    public Long solveSecondPart(String inputFile) {
+        IntGrid topographicMap = IntGrid.parseDigits(Utils.mapInput(inputFile));
+        Trails trails = exploreTrails(topographicMap);
+
+        long totalRating = 0;
+        for (final int trailhead : trails.trailheads()) {
+            long trailHeadRating = trails.rating(trailhead);
+            if (Utils.VERBOSE) {
+                System.out.printf("Trailhead at %s, rating: %d%n",
+                                  topographicMap.pointAt(trailhead),
+                                  trailHeadRating);
+            }
+            totalRating += trailHeadRating;
         }
 
-        System.out.printf("Total score: %d\n", totalScore);
-    }
-
-    /**
-     * @param trailhead      Starting point of the exploration
-     * @param topographicMap map of the mountain
-     * @return pair of (trailhead score, trace on the map after exploration
-     */
-    private Pair<Integer, List<List<HikingTrailPart>>> exploreTrailhead(
-            HikingTrailPart trailhead,
-            List<List<HikingTrailPart>> topographicMap
-    ) {
-        List<List<HikingTrailPart>> mapCopy = getMutableMapCopy(topographicMap);
-        // This may contain duplicates
-        List<Point> reachablePeaks = traverse(trailhead, mapCopy, topographicMap, new HashSet<>());
-        Set<Point> uniqueReachablePeaks = new HashSet<>(reachablePeaks);
-        //System.out.println(printTopographicMap(mapCopy));
-        return Pair.of(uniqueReachablePeaks.size(), mapCopy);
-    }
-
-    private Pair<Integer, List<List<HikingTrailPart>>> exploreTrailheadDistinctTrails(HikingTrailPart trailhead,
-            List<List<HikingTrailPart>> topographicMap
-    ) {
-        List<List<HikingTrailPart>> mapCopy = getMutableMapCopy(topographicMap);
-        // This may contain duplicates
-        List<Point> reachablePeaks = traverse(trailhead, mapCopy, topographicMap, new HashSet<>());
-        //System.out.println(printTopographicMap(mapCopy));
-        return Pair.of(reachablePeaks.size(), mapCopy);
+        if (Utils.VERBOSE) {
+            System.out.printf("Total rating: %d\n", totalRating);
+        }
+        return totalRating;
     }
 
-    private List<Point> traverse(
-            HikingTrailPart start,
-            List<List<HikingTrailPart>> mapCopy,
-            List<List<HikingTrailPart>> topographicMap,
-            Set<Point> visited
-    ) {
-        if (start.isPeak()) {
-            return List.of(start.position);
+    private Trails exploreTrails(IntGrid topographicMap) {
+        if (Utils.VERBOSE) {
+            System.out.println("Topographic map: ");
+            System.out.println(printTopographicMap(topographicMap));
         }
-        mapCopy.get(start.position.y())
-                .set(start.position.x(), new HikingTrailPart(-1, start.position));
-
-        List<HikingTrailPart> possiblePaths = start.position.getNeighboursInsideGrid(topographicMap)
-                .stream()
-                .filter(nb -> nb.height == start.height + 1)
-                .filter(nb -> !visited.contains(nb.position))
-                .toList();
-
-        if (possiblePaths.isEmpty()) {
-            return List.of();
+        Trails trails = new Trails(topographicMap);
+        if (Utils.VERBOSE) {
+            System.out.println("Trailhead locations: ");
+            System.out.println(Arrays.stream(trails.trailheads())
+                                       .mapToObj(topographicMap::pointAt)
+                                       .toList());
         }
-
-        return possiblePaths.stream()
-                .map(p -> traverse(p,
-                                   mapCopy,
-                                   topographicMap,
-                                   Streams.concat(visited.stream(), Stream.of(start.position))
-                                           .collect(Collectors.toSet())))
-                .flatMap(List::stream)
-                .toList();
+        return trails;
     }
 
-    private List<List<HikingTrailPart>> getMutableMapCopy(List<List<HikingTrailPart>> topographicMap) {
-        return Utils.getMutableGridCopy(topographicMap);
-    }
-
-    private String printTopographicMap(List<List<HikingTrailPart>> topographicMap) {
-        return topographicMap.stream()
-                .map(r -> r.stream().map(HikingTrailPart::toString).collect(Collectors.joining("")))
-                .collect(Collectors.joining("\n"));
+    /**
+     * Scores and ratings of the trailheads, computed bottom-up from the peaks.
+     * <p>
+     * A trail climbs by exactly one with each step, so everything reachable from a
+     * location at height h is reachable through its neighbours at height h + 1. The
+     * locations are therefore processed by decreasing height, starting at the peaks,
+     * and each of them combines the results of its higher neighbours:
+     * <ul>
+     *     <li>the number of distinct trails is the sum of their trail counts</li>
+     *     <li>the set of reachable peaks is the union of their peak sets</li>
+     * </ul>
+     * The peak sets are bitsets over the peaks stored in a flat long array with the same
+     * number of words for each location. A height only reads the peak sets of the height
+     * above it, so only those two layers are kept, each indexed by the position of the
+     * location within its layer. Each location is visited once, no matter how many
+     * trailheads share it.
+     */
+    private static final class Trails {
+        private final int[] trailheads;
+        private final long[] trailCounts;
+        // Position of each location among the locations of the same height.
+        private final int[] layerPositions;
+        private final int[] trailheadScores;
+        private final int words;
+
+        Trails(IntGrid topographicMap) {
+            int size = topographicMap.size();
+            // Locations of height h are stored from heightStarts[h] until heightStarts[h + 1].
+            int[] heightStarts = findHeightStarts(topographicMap);
+            int[] locationsByHeight = sortLocationsByHeight(topographicMap, heightStarts);
+
+            int peakCount = heightStarts[PEAK_HEIGHT + 1] - heightStarts[PEAK_HEIGHT];
+            this.words = Math.max(1, (peakCount + Long.SIZE - 1) / Long.SIZE);
+            this.trailCounts = new long[size];
+            this.layerPositions = new int[size];
+            this.trailheads = Arrays.copyOfRange(locationsByHeight,
+                                                 heightStarts[TRAILHEAD_HEIGHT],
+                                                 heightStarts[TRAILHEAD_HEIGHT + 1]);
+            for (int height = TRAILHEAD_HEIGHT; height <= PEAK_HEIGHT; height++) {
+                for (int i = heightStarts[height]; i < heightStarts[height + 1]; i++) {
+                    layerPositions[locationsByHeight[i]] = i - heightStarts[height];
+                }
+            }
 
-    }
+            long[] higherPeaks = newLayer(peakCount);
+            for (int peak = 0; peak < peakCount; peak++) {
+                trailCounts[locationsByHeight[heightStarts[PEAK_HEIGHT] + peak]] = 1;
+                higherPeaks[peak * words + peak / Long.SIZE] |= 1L << peak;
+            }
+            for (int height = PEAK_HEIGHT - 1; height >= TRAILHEAD_HEIGHT; height--) {
+                long[] peaks = newLayer(heightStarts[height + 1] - heightStarts[height]);
+                for (int i = heightStarts[height]; i < heightStarts[height + 1]; i++) {
+                    int location = locationsByHeight[i];
+                    int position = i - heightStarts[height];
+                    for (int k = 0; k < Point.Connectivity.FOUR.size(); k++) {
+                        int nb = topographicMap.neighbour(location, Point.Connectivity.FOUR, k);
+                        if (nb < 0 || topographicMap.get(nb) != height + 1 || trailCounts[nb] == 0) {
+                            continue;
+                        }
+                        trailCounts[location] += trailCounts[nb];
+                        int nbPosition = layerPositions[nb];
+                        for (int w = 0; w < words; w++) {
+                            peaks[position * words + w] |= higherPeaks[nbPosition * words + w];
+                        }
+                    }
+                }
+                higherPeaks = peaks;
+            }
 
+            this.trailheadScores = new int[trailheads.length];
+            for (int position = 0; position < trailheads.length; position++) {
+                for (int w = 0; w < words; w++) {
+                    trailheadScores[position] += Long.bitCount(higherPeaks[position * words + w]);
+                }
+            }
+        }
 
-    private static List<List<HikingTrailPart>> readTopographicMap(Stream<String> input) {
-        // Surprisingly java does not have a nice way to iterate over a stream with indices
-        // so we need to use this cursed code
-        AtomicInteger rowIndex = new AtomicInteger();
-        AtomicInteger columnIndex = new AtomicInteger();
-        // we use the length to increment the row index module row length
-        return input.map(str -> Triple.of(str.chars().mapToObj(c -> (char) c),
-                                          columnIndex.getAndAdd(1),
-                                          str.length()))
-                .map(t -> Triple.of(t.getLeft()
-                                            .map(String::valueOf)
-                                            .map(Integer::parseInt)
-                                            .toList(), t.getMiddle(), t.getRight()))
-                .map(t -> t.getLeft()
-                        .stream()
-                        .map(h -> new HikingTrailPart(h,
-                                                      new Point(rowIndex.getAndSet((rowIndex.get()
-                                                                                    + 1)
-                                                                                   % t.getRight()),
-                                                                t.getMiddle())))
-                        .toList())
-                .toList();
+        /**
+         * @return Peak sets for a layer of the given number of locations.
+         */
+        private long[] newLayer(int locations) {
+            // Fails instead of overflowing if the layer doesn't fit into a single array.
+            return new long[Math.multiplyExact(locations, words)];
+        }
 
-    }
+        private static int[] findHeightStarts(IntGrid topographicMap) {
+            int[] heightStarts = new int[PEAK_HEIGHT + 2];
+            for (int i = 0; i < topographicMap.size(); i++) {
+                int height = topographicMap.get(i);
+                assert TRAILHEAD_HEIGHT <= height && height <= PEAK_HEIGHT :
+                        "Heights need to be between 0 and 9.";
+                heightStarts[height + 1]++;
+            }
+            for (int height = 0; height <= PEAK_HEIGHT; height++) {
+                heightStarts[height + 1] += heightStarts[height];
+            }
+            return heightStarts;
+        }
 
-    record HikingTrailPart(int height, Point position) {
-        boolean isTrailHead() {
-            return height == 0;
+        /**
+         * Counting sort of the location indices by their height.
+         */
+        private static int[] sortLocationsByHeight(IntGrid topographicMap, int[] heightStarts) {
+            int[] next = Arrays.copyOf(heightStarts, heightStarts.length);
+            int[] sorted = new int[topographicMap.size()];
+            for (int i = 0; i < topographicMap.size(); i++) {
+                sorted[next[topographicMap.get(i)]++] = i;
+            }
+            return sorted;
         }
 
-        boolean isPeak() {
-            return height == 9;
+        int[] trailheads() {
+            return trailheads;
         }
 
-        boolean isVisited() {
-            return height == -1;
+        /**
+         * @return trailhead score, i.e. the number of distinct peaks reachable from it
+         */
+        int score(int location) {
+            return trailheadScores[layerPositions[location]];
         }
 
-        @Override
-        public String toString() {
-            if (isTrailHead()) {
-                return "_";
-            }
-            if (isPeak()) {
-                return "*";
-            }
-            if (isVisited()) {
-                return "x";
-            }
-            return String.valueOf(height);
+        /**
+         * @return trailhead rating, i.e. the number of distinct trails starting at it
+         */
+        long rating(int location) {
+            return trailCounts[location];
         }
     }
+
+    private String printTopographicMap(IntGrid topographicMap) {
+        return IntStream.range(0, topographicMap.height())
+                .mapToObj(y -> IntStream.range(0, topographicMap.width())
+                        .mapToObj(x -> switch (topographicMap.get(x, y)) {
+                            case TRAILHEAD_HEIGHT -> "_";
+                            case PEAK_HEIGHT -> "*";
+                            default -> String.valueOf(topographicMap.get(x, y));
+                        })
+                        .collect(Collectors.joining("")))
+                .collect(Collectors.joining("\n"));
+    }
 }
@@ -2,68 +2,386 @@ package solutions.year2024;
 
 import solutions.Solution;
 import solutions.Utils;
+import solutions.common.LongLongMap;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day11 implements Solution {
+public class Day11 implements Solution<Long, Long> {
+    // Overrides the number of blinks of the second part, e.g. BLINKS=1000000000000
+    private static final String BLINKS = System.getenv("BLINKS");
+    // When set, the stones are counted modulo this prime, see ModularBlinkCounter
+    private static final String BLINK_MODULUS = System.getenv("BLINK_MODULUS");
+
     @Override
-    public void firstPart(String inputFile) {
+    public Long solveFirstPart(String inputFile) {
         long iterations = 25;
-        transformForIterations(iterations, inputFile);
+        return transformForIterations(iterations, inputFile);
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        long iterations = 75;
-        transformForIterations(iterations, inputFile);
+    public Long solveSecondPart(String inputFile) {
+        long iterations = BLINKS == null ? 75 : Long.parseLong(BLINKS);
+        return transformForIterations(iterations, inputFile);
     }
 
-    private void transformForIterations(long iterations, String inputFile) {
+    private long transformForIterations(long iterations, String inputFile) {
         List<MagicStone> stones = readStones(Utils.readInputAsStream(inputFile));
 
-        System.out.println(printStones(stones));
+        if (Utils.VERBOSE) {
+            System.out.println(printStones(stones));
+        }
 
-        Map<MagicStone, Long> duplicatesMap = stones.stream()
-                .collect(Collectors.toMap(stone -> stone, _stone -> 1L));
+        BlinkEngine engine = new BlinkEngine();
+        if (BLINK_MODULUS != null) {
+            long modulus = Long.parseLong(BLINK_MODULUS);
+            ModularBlinkCounter counter = new ModularBlinkCounter(engine, stones, modulus);
+            long totalStones = counter.countAfter(iterations);
+            if (Utils.VERBOSE) {
+                System.out.printf("Total stones after %d iterations modulo %d: %d\n",
+                                  iterations,
+                                  modulus,
+                                  totalStones);
+            }
+            return totalStones;
+        }
+
+        LongLongMap stoneCounts = new LongLongMap();
+        for (MagicStone stone : stones) {
+            stoneCounts.add(stone.value(), 1);
+        }
+        LongLongMap nextStoneCounts = new LongLongMap(stoneCounts.size());
 
         long totalStones = stones.size();
         for (long i = 0; i < iterations; i++) {
-            duplicatesMap = duplicatesMap.entrySet()
-                    .stream()
-                    .map(entry -> entry.getKey()
-                            .transform()
-                            .stream()
-                            .map(stone -> Map.entry(stone, entry.getValue()))
-                            .toList())
-                    .flatMap(List::stream)
-                    .collect(Collectors.groupingBy(Map.Entry::getKey))
-                    .entrySet()
-                    .stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey,
-                                              entry -> entry.getValue()
-                                                      .stream()
-                                                      .map(Map.Entry::getValue)
-                                                      .reduce(Long::sum)
-                                                      .get()));
+            engine.blink(stoneCounts, nextStoneCounts);
+            LongLongMap swap = stoneCounts;
+            stoneCounts = nextStoneCounts;
+            nextStoneCounts = swap;
+
             long stonesBefore = totalStones;
-            totalStones = duplicatesMap.values().stream().reduce(Long::sum).get();
-            System.out.println(("Performing iteration: (%d/%d), stones before: %d, stones after: "
-                                + "%d").formatted(
-                    i + 1,
-                    iterations,
-                    stonesBefore,
-                    totalStones));
+            totalStones = countStones(stoneCounts);
+            if (Utils.VERBOSE) {
+                System.out.println(("Performing iteration: (%d/%d), stones before: %d, stones after: "
+                                    + "%d, distinct values: %d").formatted(
+                        i + 1,
+                        iterations,
+                        stonesBefore,
+                        totalStones,
+                        stoneCounts.size()));
+            }
+
+        }
+
+        if (Utils.VERBOSE) {
+            System.out.printf("Total stones after %d iterations: %d\n", iterations, totalStones);
+        }
+        return totalStones;
+    }
+
+    private static long countStones(LongLongMap stoneCounts) {
+        long totalStones = 0;
+        for (int slot = 0; slot < stoneCounts.capacity(); slot++) {
+            if (stoneCounts.isOccupied(slot)) {
+                totalStones += stoneCounts.valueAt(slot);
+            }
+        }
+        return totalStones;
+    }
+
+    /**
+     * Blinks over a histogram of the stone values, since stones with the same value
+     * always turn into the same stones and their order doesn't matter for counting.
+     * <p>
+     * Only a small set of values ever shows up, so the stones that each value turns into
+     * are computed once and remembered. The memo maps each value to a transition, whose
+     * resulting values are stored in two parallel arrays.
+     */
+    private static final class BlinkEngine {
+        private static final long NONE = -1;
 
+        private final LongLongMap transitionIndex = new LongLongMap();
+        private long[] firstResults = new long[64];
+        private long[] secondResults = new long[64];
+        private int transitionCount;
+
+        /**
+         * Turns the stone counts into the counts after one blink. The target map is
+         * cleared first, so that a pair of maps can be swapped between the blinks.
+         */
+        void blink(LongLongMap stoneCounts, LongLongMap target) {
+            target.clear();
+            for (int slot = 0; slot < stoneCounts.capacity(); slot++) {
+                if (!stoneCounts.isOccupied(slot)) {
+                    continue;
+                }
+                long count = stoneCounts.valueAt(slot);
+                int transition = transitionOf(stoneCounts.keyAt(slot));
+                target.add(firstResults[transition], count);
+                if (secondResults[transition] != NONE) {
+                    target.add(secondResults[transition], count);
+                }
+            }
         }
 
-        System.out.printf("Total stones after %d iterations: %d\n", iterations, totalStones);
+        int transitionCount() {
+            return transitionCount;
+        }
+
+        long firstResult(int transition) {
+            return firstResults[transition];
+        }
+
+        /**
+         * @return Value of the second stone or -1 if the stone doesn't split.
+         */
+        long secondResult(int transition) {
+            return secondResults[transition];
+        }
+
+        int transitionOf(long value) {
+            long known = transitionIndex.getOrDefault(value, NONE);
+            if (known != NONE) {
+                return (int) known;
+            }
+            if (transitionCount == firstResults.length) {
+                firstResults = Arrays.copyOf(firstResults, 2 * transitionCount);
+                secondResults = Arrays.copyOf(secondResults, 2 * transitionCount);
+            }
+            int transition = transitionCount++;
+            MagicStone.transform(value, firstResults, secondResults, transition);
+            transitionIndex.put(value, transition);
+            return transition;
+        }
     }
 
+    /**
+     * Counts the stones after a huge number of blinks modulo a prime.
+     * <p>
+     * The values reachable from the initial stones form a small closed set, so blinking
+     * is a linear operator T on the vector of counts per value and the number of stones
+     * after n blinks is a(n) = 1 * T^n * v. Squaring the operator itself is cubic in the
+     * number of values, which are a few thousand. Instead, the sequence a(n) satisfies a
+     * linear recurrence of order at most the number of values. That recurrence is found
+     * with the Berlekamp-Massey algorithm from the first terms, which are cheap to get by
+     * applying the sparse operator. The n-th term then follows from x^n modulo the
+     * characteristic polynomial of the recurrence, computed by repeated squaring.
+     */
+    private static final class ModularBlinkCounter {
+        private final long modulus;
+        private final int stateCount;
+        private final int[] firstChild;
+        private final int[] secondChild;
+        private final long[] initialCounts;
+
+        ModularBlinkCounter(BlinkEngine engine, List<MagicStone> stones, long modulus) {
+            assert 1 < modulus && modulus <= Integer.MAX_VALUE :
+                    "The modulus needs to fit into an int so that products fit into a long.";
+            assert BigInteger.valueOf(modulus).isProbablePrime(30) :
+                    "The modulus needs to be a prime, the recurrence is found by dividing.";
+            this.modulus = modulus;
+
+            int[] initialStates = new int[stones.size()];
+            for (int i = 0; i < stones.size(); i++) {
+                initialStates[i] = engine.transitionOf(stones.get(i).value());
+            }
+            // Transitions are numbered in the order of discovery, so going through them
+            // while adding the ones of the resulting values finds the whole closed set.
+            for (int state = 0; state < engine.transitionCount(); state++) {
+                engine.transitionOf(engine.firstResult(state));
+                if (engine.secondResult(state) >= 0) {
+                    engine.transitionOf(engine.secondResult(state));
+                }
+            }
+            this.stateCount = engine.transitionCount();
+            this.firstChild = new int[stateCount];
+            this.secondChild = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                firstChild[state] = engine.transitionOf(engine.firstResult(state));
+                secondChild[state] = engine.secondResult(state) >= 0
+                        ? engine.transitionOf(engine.secondResult(state))
+                        : -1;
+            }
+            this.initialCounts = new long[stateCount];
+            for (int state : initialStates) {
+                initialCounts[state]++;
+            }
+            if (Utils.VERBOSE) {
+                System.out.printf("Closed set of stone values: %d\n", stateCount);
+            }
+        }
+
+        long countAfter(long blinks) {
+            // A recurrence of order L is determined by its first 2L terms.
+            long[] totals = countFirstBlinks(2 * stateCount + 2);
+            if (blinks < totals.length) {
+                return totals[(int) blinks];
+            }
+            long[] recurrence = findRecurrence(totals);
+            if (Utils.VERBOSE) {
+                System.out.printf("Order of the recurrence: %d\n", recurrence.length);
+            }
+            long[] combination = powerOfXModulo(recurrence, blinks);
+            long total = 0;
+            for (int i = 0; i < combination.length; i++) {
+                total = (total + combination[i] * totals[i]) % modulus;
+            }
+            return total;
+        }
+
+        /**
+         * @return Number of stones after 0 until the given number of blinks.
+         */
+        private long[] countFirstBlinks(int terms) {
+            long[] totals = new long[terms];
+            long[] counts = initialCounts.clone();
+            long[] nextCounts = new long[stateCount];
+            for (int blink = 0; blink < terms; blink++) {
+                long total = 0;
+                for (long count : counts) {
+                    total += count;
+                }
+                totals[blink] = total % modulus;
+
+                Arrays.fill(nextCounts, 0);
+                for (int state = 0; state < stateCount; state++) {
+                    long count = counts[state];
+                    if (count == 0) {
+                        continue;
+                    }
+                    nextCounts[firstChild[state]] = (nextCounts[firstChild[state]] + count) % modulus;
+                    if (secondChild[state] >= 0) {
+                        nextCounts[secondChild[state]] = (nextCounts[secondChild[state]] + count)
+                                                         % modulus;
+                    }
+                }
+                long[] swap = counts;
+                counts = nextCounts;
+                nextCounts = swap;
+            }
+            return totals;
+        }
+
+        /**
+         * Berlekamp-Massey algorithm over the integers modulo the prime.
+         *
+         * @return Coefficients c such that a(n) = c[0] * a(n - 1) + ... + c[L - 1] * a(n - L)
+         * for all n >= L within the given terms.
+         */
+        private long[] findRecurrence(long[] terms) {
+            long[] current = {1};
+            long[] previous = {1};
+            int length = 0;
+            int shift = 1;
+            long previousDiscrepancy = 1;
+            for (int n = 0; n < terms.length; n++) {
+                long discrepancy = terms[n];
+                for (int i = 1; i <= length; i++) {
+                    discrepancy = (discrepancy + current[i] * terms[n - i]) % modulus;
+                }
+                if (discrepancy == 0) {
+                    shift++;
+                    continue;
+                }
+                long factor = discrepancy * inverse(previousDiscrepancy) % modulus;
+                long[] updated = Arrays.copyOf(current, Math.max(current.length, previous.length + shift));
+                for (int i = 0; i < previous.length; i++) {
+                    updated[i + shift] = (updated[i + shift] + modulus - factor * previous[i] % modulus)
+                                         % modulus;
+                }
+                if (2 * length <= n) {
+                    previous = current;
+                    length = n + 1 - length;
+                    previousDiscrepancy = discrepancy;
+                    shift = 1;
+                } else {
+                    shift++;
+                }
+                current = updated;
+            }
+            long[] coefficients = new long[length];
+            for (int i = 1; i <= length; i++) {
+                long c = i < current.length ? current[i] : 0;
+                coefficients[i - 1] = (modulus - c) % modulus;
+            }
+            return coefficients;
+        }
+
+        /**
+         * @return Coefficients of x^exponent modulo the characteristic polynomial
+         * x^L - c[0] * x^(L - 1) - ... - c[L - 1], lowest degree first. Since the sequence
+         * satisfies the recurrence, a(exponent) is the same combination of a(0) ... a(L - 1).
+         */
+        private long[] powerOfXModulo(long[] recurrence, long exponent) {
+            int order = recurrence.length;
+            long[] result = new long[order];
+            if (order == 0) {
+                return result;
+            }
+            long[] constantOne = new long[order];
+            constantOne[0] = 1;
+            result = constantOne;
+            for (int bit = Long.SIZE - 1 - Long.numberOfLeadingZeros(exponent); bit >= 0; bit--) {
+                result = multiplyModulo(result, result, recurrence);
+                if ((exponent >>> bit & 1) != 0) {
+                    result = multiplyByXModulo(result, recurrence);
+                }
+            }
+            return result;
+        }
+
+        private long[] multiplyModulo(long[] first, long[] second, long[] recurrence) {
+            int order = recurrence.length;
+            long square = modulus * modulus;
+            long[] product = new long[2 * order - 1];
+            for (int i = 0; i < order; i++) {
+                if (first[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < order; j++) {
+                    // Both factors are below the modulus, so instead of taking the
+                    // remainder after each step it is enough to keep the sum below its square.
+                    long sum = product[i + j] + first[i] * second[j];
+                    product[i + j] = sum >= square ? sum - square : sum;
+                }
+            }
+            // Replace x^d for d >= L using x^L = c[0] * x^(L - 1) + ... + c[L - 1].
+            for (int degree = 2 * order - 2; degree >= order; degree--) {
+                long coefficient = product[degree] % modulus;
+                if (coefficient == 0) {
+                    continue;
+                }
+                for (int i = 1; i <= order; i++) {
+                    long sum = product[degree - i] + coefficient * recurrence[i - 1];
+                    product[degree - i] = sum >= square ? sum - square : sum;
+                }
+            }
+            long[] reduced = new long[order];
+            for (int i = 0; i < order; i++) {
+                reduced[i] = product[i] % modulus;
+            }
+            return reduced;
+        }
+
+        private long[] multiplyByXModulo(long[] polynomial, long[] recurrence) {
+            int order = recurrence.length;
+            long[] shifted = new long[order];
+            long top = polynomial[order - 1];
+            System.arraycopy(polynomial, 0, shifted, 1, order - 1);
+            for (int i = 1; i <= order; i++) {
+                shifted[order - i] = (shifted[order - i] + top * recurrence[i - 1]) % modulus;
+            }
+            return shifted;
+        }
+
+        private long inverse(long value) {
+            return BigInteger.valueOf(value).modInverse(BigInteger.valueOf(modulus)).longValue();
+        }
+    }
 
     private List<MagicStone> readStones(Stream<String> input) {
         return input.map(str -> Arrays.stream(str.split(" ")).toList())
@@ -79,20 +397,43 @@ public class Day11 implements Solution {
     }
 
     record MagicStone(long value) {
-        public List<MagicStone> transform() {
+        private static final long[] POWERS_OF_TEN = new long[19];
+
+        static {
+            POWERS_OF_TEN[0] = 1;
+            for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+                POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+            }
+        }
+
+        /**
+         * Writes the values of the stones that the stone with the given value turns into
+         * to index i of the arrays, the second one is -1 if the stone doesn't split.
+         */
+        static void transform(long value, long[] first, long[] second, int i) {
+            second[i] = -1;
             if (value == 0) {
-                return List.of(new MagicStone(1));
+                first[i] = 1;
+                return;
             }
 
-            String valueStr = String.valueOf(value);
-            if (valueStr.length() % 2 == 0) {
-                int midpoint = valueStr.length() / 2;
-                long firstPart = Long.parseLong(valueStr.substring(0, midpoint));
-                long secondPart = Long.parseLong(valueStr.substring(midpoint));
-                return List.of(new MagicStone(firstPart), new MagicStone(secondPart));
+            int digits = countDigits(value);
+            if (digits % 2 == 0) {
+                long half = POWERS_OF_TEN[digits / 2];
+                first[i] = value / half;
+                second[i] = value % half;
+                return;
             }
 
-            return List.of(new MagicStone(2024 * value));
+            first[i] = Math.multiplyExact(2024, value);
+        }
+
+        private static int countDigits(long value) {
+            int digits = 1;
+            while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+                digits++;
+            }
+            return digits;
         }
 
         @Override
@@ -1,487 +1,202 @@
 package solutions.year2024;
 
-import lombok.AllArgsConstructor;
-import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
-import solutions.common.Point;
+import solutions.common.IntGrid;
+import solutions.common.UnionFind;
 
-import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
-public class Day12 implements Solution {
+public class Day12 implements Solution<Long, Long> {
     @Override
-    public void firstPart(String inputFile) {
-        final var farmMap = readFarmMap(Utils.readInputAsStream(inputFile));
-        System.out.println("Farm map:");
-        System.out.println(printFarmMap(farmMap));
-
-        final var farmMapDilated = dilate(farmMap);
-        System.out.println("Dilated farm map:");
-        System.out.println(printFarmMap(farmMapDilated));
-        final var farmMapClassified = classifyFencesAndBetweenLand(farmMapDilated);
-        System.out.println("Farm map with fences and in-land boundaries:");
-        System.out.println(printFarmMap(farmMapClassified));
-
-        List<List<Pair<FarmLand, Point>>> distinctRegions = findDistinctRegions(farmMapClassified);
-
-        int totalPrice = distinctRegions.stream()
-                .map(region -> region.stream().map(Pair::getLeft).toList())
-                .map(Day12::calculateAreaAndPerimeter)
-                .map(pair -> getPrice(pair.getLeft(), pair.getRight()))
-                .reduce(Integer::sum)
-                .get();
-
-        System.out.printf("Total price of the garden fence: %d\n", totalPrice);
-
-    }
-
-
-    @Override
-    public void secondPart(String inputFile) {
-        final var farmMap = readFarmMap(Utils.readInputAsStream(inputFile));
-        System.out.println("Farm map:");
-        System.out.println(printFarmMap(farmMap));
-
-        // We first need to identify distinct regions and make their types unique
-        final var farmMapDilated = dilate(farmMap);
-        System.out.println("Dilated farm map:");
-        System.out.println(printFarmMap(farmMapDilated));
-        final var farmMapClassified = classifyFencesAndBetweenLand(farmMapDilated);
-        System.out.println("Farm map with fences and in-land boundaries:");
-        System.out.println(printFarmMap(farmMapClassified));
-
-        List<List<Pair<FarmLand, Point>>> distinctRegions = findDistinctRegions(farmMapClassified);
-        // We stamp the distinct region ids on the classified map so that we can then differentiate
-        // between wall counts of distinct regions of the same type
-        stampDistinctRegionIds(farmMapClassified, distinctRegions);
-        List<List<GardenPlot>> farmLandCompressed = compress(farmMapClassified);
-        System.out.println(printFarmMap(farmLandCompressed));
-
-        Map<Integer, Integer> horizontal = performWallAnalysis(farmLandCompressed);
-        List<List<GardenPlot>> farmMapTransposed = transpose(farmLandCompressed);
-        System.out.println("Transposed Farm map:");
-        System.out.println(printFarmMap(farmMapTransposed));
-        Map<Integer, Integer> vertical = performWallAnalysis(farmMapTransposed);
-
-        System.out.println("Horizontal walls: ");
-        System.out.println(horizontal);
-        System.out.println("Vertical walls: ");
-        System.out.println(vertical);
-
-
-        int totalPrice = distinctRegions.stream()
-                .map(region -> region.stream().map(Pair::getLeft).toList())
-                // find the type for each region
-                .map(lands -> {
-                    FarmLand land = lands.getFirst();
-                    if (land instanceof GardenPlot gp) {
-                        return Pair.of(gp.distinctRegionId, lands);
-                    } else {
-                        return Pair.of(((BetweenLand) land).distinctRegionId, lands);
-                    }
-                })
-                .map(p -> Pair.of(p.getLeft(), calculateAreaAndPerimeter(p.getRight())))
-                .map(p -> {
-                    int area = p.getRight().getLeft();
-                    int horizontalWalls = horizontal.get(p.getLeft());
-                    int verticalWalls = vertical.get(p.getLeft());
-                    System.out.printf(
-                            "Type: %s, area: %d, horizontal walls: %d, vertical walls: %d\n",
-                            p.getLeft(),
-                            area,
-                            horizontalWalls,
-                            verticalWalls);
-                    return getPriceWithWallCount(area, horizontalWalls + verticalWalls);
-                })
-                .reduce(Integer::sum)
-                .get();
-
-        System.out.printf("Total price of the garden fence: %d\n", totalPrice);
-
-    }
-
-    private List<List<GardenPlot>> compress(List<List<FarmLand>> farmMapClassified) {
-        return farmMapClassified.stream()
-                .map(row -> row.stream()
-                        .filter(land -> land instanceof GardenPlot)
-                        .map(land -> (GardenPlot) land)
-                        .toList())
-                .filter(Predicate.not(List::isEmpty))
-                .toList();
-    }
-
-    private void stampDistinctRegionIds(
-            List<List<FarmLand>> farmMapClassified,
-            List<List<Pair<FarmLand, Point>>> distinctRegions
-    ) {
-        int id = 1;
-        for (final var region : distinctRegions) {
-            for (final var pair : region) {
-                Point location = pair.getRight();
-                FarmLand land = location.indexGrid(farmMapClassified);
-                if (land instanceof GardenPlot gp) {
-                    gp.distinctRegionId = id;
-                    continue;
-                }
-                if (land instanceof BetweenLand b) {
-                    b.distinctRegionId = id;
+    public Long solveFirstPart(String inputFile) {
+        final var farmMap = readFarmMap(Utils.mapInput(inputFile));
+        if (Utils.VERBOSE) {
+            System.out.println("Farm map:");
+            System.out.println(printFarmMap(farmMap));
+        }
+
+        final var regions = new GardenRegions(farmMap);
+        long totalPrice = 0;
+        for (int plot = 0; plot < farmMap.size(); plot++) {
+            if (regions.isRegionRoot(plot)) {
+                if (Utils.VERBOSE) {
+                    System.out.printf("Type: %s at %s, area: %d, perimeter: %d\n",
+                                      (char) farmMap.get(plot),
+                                      farmMap.pointAt(plot),
+                                      regions.area(plot),
+                                      regions.perimeter(plot));
                 }
+                totalPrice += getPrice(regions.area(plot), regions.perimeter(plot));
             }
-            id++;
-        }
-    }
-
-    private List<List<GardenPlot>> transpose(List<List<GardenPlot>> farmMap) {
-        List<List<GardenPlot>> transposed = new ArrayList<>();
-        for (int i = 0; i < farmMap.get(0).size(); i++) {
-            List<GardenPlot> column = new ArrayList<>();
-            for (int j = 0; j < farmMap.size(); j++) {
-                column.add(farmMap.get(j).get(i));
-            }
-            transposed.add(column);
-        }
-        return transposed;
-    }
-
-    private Map<Integer, Integer> performWallAnalysis(List<List<GardenPlot>> farmMap) {
-        // We scan the grid row-by-row, then we look at contiguous blocks
-        // of the same type, if the blocks change in length, we have detected a wall
-
-        // We map from the distinct region id to the count of walls for that region
-        Map<Integer, Integer> wallCountMap = new HashMap<>();
-        for (int i = 0; i < farmMap.size(); i++) {
-            List<GardenPlot> currentRow = farmMap.get(i);
-            if (i == 0) {
-                // Analyze wall from the top of the grid
-                analyzeOutsideWall(currentRow, wallCountMap);
-                System.out.println("After top border analysis");
-                System.out.println(wallCountMap);
-                continue;
-            }
-            if (i == farmMap.size() - 1) {
-                // Analyze wall from the bottom of the grid
-                analyzeOutsideWall(currentRow, wallCountMap);
-                System.out.println("After bottom border analysis");
-                System.out.println(wallCountMap);
-            }
-
-            // Analyze by looking at the boundary between the row
-            // directly above the current row and the current row
-            List<GardenPlot> rowAbove = farmMap.get(i - 1);
-
-            GardenPlot prevAbove = rowAbove.getFirst();
-            GardenPlot prevCurrent = currentRow.getFirst();
-
-            if (prevCurrent.type != prevAbove.type) {
-                incrementWallCount(prevAbove.distinctRegionId, wallCountMap);
-                incrementWallCount(prevCurrent.distinctRegionId, wallCountMap);
-            }
-            for (int j = 1; j < currentRow.size(); j++) {
-                GardenPlot currAbove = rowAbove.get(j);
-                GardenPlot currCurrent = currentRow.get(j);
-
-                Set<Integer> typesWithNewWalls = analyzeWindow(prevAbove,
-                                                               currAbove,
-                                                               prevCurrent,
-                                                               currCurrent);
-                System.out.printf("New walls detected: %s\n", typesWithNewWalls);
-                typesWithNewWalls.forEach(type -> incrementWallCount(type, wallCountMap));
-                System.out.print("After inspecting window: ");
-                System.out.println(wallCountMap);
-                prevAbove = currAbove;
-                prevCurrent = currCurrent;
-            }
-            System.out.print("After full row analysis: ");
-            System.out.println(wallCountMap);
-        }
-
-        return wallCountMap;
-    }
-
-    private Set<Integer> analyzeWindow(
-            GardenPlot prevAbove,
-            GardenPlot currAbove,
-            GardenPlot prevCurrent,
-            GardenPlot currCurrent
-    ) {
-
-        char prevCharAbove = prevAbove.type;
-        char currCharAbove = currAbove.type;
-        char prevCharCurrent = prevCurrent.type;
-        char currCharCurrent = currCurrent.type;
-        System.out.printf("Looking at window:\n%s%s\n%s%s\n",
-                          prevCharAbove,
-                          currCharAbove,
-                          prevCharCurrent,
-                          currCharCurrent);
-
-        /*
-        If we have a window of type:
-        AA
-        _-
-        AC
-        We want to add new the new wall (marked with - above) for both C and A
-         */
-        if (prevCharAbove == prevCharCurrent && currCharAbove != currCharCurrent) {
-            return Set.of(currAbove.distinctRegionId, currCurrent.distinctRegionId);
-        }
-
-        /*
-        If we have a window of type:
-        AA
-        _-
-        BA
-        The walls for B and A already have been added when we looked at the previous window
-        XA
-        XB
-        So in this case we don't add anything
-         */
-        if (currCharAbove == currCharCurrent) {
-            return Set.of();
         }
 
-        /* If we have a window of type:
-        AA
-        BC
-        The A and B walls already have been counted, so
-        we only add a wall for c
-        */
-        if (prevCharAbove == currCharAbove && prevCharCurrent != currCharCurrent) {
-            return Set.of(currCurrent.distinctRegionId);
+        if (Utils.VERBOSE) {
+            System.out.printf("Total price of the garden fence: %d\n", totalPrice);
         }
-
-        // As above but we are going along the wall in the bottom two cells.
-        if (prevCharCurrent == currCharCurrent && prevCharAbove != currCharAbove) {
-            return Set.of(currAbove.distinctRegionId);
-        }
-
-        // All adjacent are different
-        if (prevCharAbove != prevCharCurrent
-            && currCharAbove != currCharCurrent
-            && prevCharAbove != currCharAbove
-            && prevCurrent != currCurrent) {
-            return Set.of(currAbove.distinctRegionId, currCurrent.distinctRegionId);
-        }
-
-        // Nothing has changed, still tracing the same wall.
-        return Set.of();
+        return totalPrice;
     }
 
-    private static void analyzeOutsideWall(
-            List<GardenPlot> currentRow,
-            Map<Integer, Integer> wallCountMap
-    ) {
-        int prev = currentRow.get(0).distinctRegionId;
-        incrementWallCount(prev, wallCountMap);
-        for (int j = 1; j < currentRow.size(); j++) {
-            int curr = currentRow.get(j).distinctRegionId;
-            if (curr != prev) {
-                incrementWallCount(curr, wallCountMap);
-            }
-            prev = curr;
-        }
-    }
-
-    private static void incrementWallCount(int key, Map<Integer, Integer> wallCountMap) {
-        wallCountMap.put(key, wallCountMap.getOrDefault(key, 0) + 1);
-    }
 
-
-    private List<List<FarmLand>> dilate(List<List<FarmLand>> farmMap) {
-        assert !farmMap.isEmpty() : "Farm land map cannot be empty";
-
-        List<List<FarmLand>> farmMapDilated = new ArrayList<>();
-        int width = farmMap.get(0).size();
-        final List<FarmLand> emptyRow = IntStream.range(0, 2 * width - 1)
-                .mapToObj(_i -> (FarmLand) new Empty())
-                .toList();
-        for (int i = 0; i < farmMap.size(); i++) {
-            List<FarmLand> dilatedRow = new ArrayList<>();
-            for (int j = 0; j < width; j++) {
-                dilatedRow.add(farmMap.get(i).get(j));
-                if (j < width - 1) {
-                    dilatedRow.add(new Empty());
+    @Override
+    public Long solveSecondPart(String inputFile) {
+        final var farmMap = readFarmMap(Utils.mapInput(inputFile));
+        if (Utils.VERBOSE) {
+            System.out.println("Farm map:");
+            System.out.println(printFarmMap(farmMap));
+        }
+
+        final var regions = new GardenRegions(farmMap);
+        long totalPrice = 0;
+        for (int plot = 0; plot < farmMap.size(); plot++) {
+            if (regions.isRegionRoot(plot)) {
+                if (Utils.VERBOSE) {
+                    System.out.printf("Type: %s at %s, area: %d, walls: %d\n",
+                                      (char) farmMap.get(plot),
+                                      farmMap.pointAt(plot),
+                                      regions.area(plot),
+                                      regions.wallCount(plot));
                 }
-            }
-            farmMapDilated.add(dilatedRow);
-            if (i < farmMap.size() - 1) {
-                farmMapDilated.add(new ArrayList<>(emptyRow));
+                totalPrice += getPriceWithWallCount(regions.area(plot), regions.wallCount(plot));
             }
         }
-        return farmMapDilated;
-    }
 
-    private List<List<FarmLand>> classifyFencesAndBetweenLand(List<List<FarmLand>> farmMap) {
-        List<List<FarmLand>> mapCopy = getFarmMapCopy(farmMap);
-        int width = farmMap.get(0).size();
-        for (int i = 0; i < mapCopy.size(); i++) {
-            for (int j = 0; j < width; j++) {
-                Point location = new Point(j, i);
-                List<FarmLand> neighbours = location.getNeighboursInsideGrid(mapCopy);
-                Set<Character> neighbourTypes = neighbours.stream()
-                        .filter(nb -> nb instanceof GardenPlot)
-                        .map(g -> ((GardenPlot) g).type)
-                        .collect(Collectors.toSet());
-                if (location.indexGrid(farmMap) instanceof Empty) {
-                    if (neighbourTypes.size() != 1) {
-                        mapCopy.get(i).set(j, new Fence());
-                    } else {
-                        mapCopy.get(i)
-                                .set(j,
-                                     new BetweenLand(neighbourTypes.stream()
-                                                             .toList()
-                                                             .getFirst()
-                                                             .toString()
-                                                             .toLowerCase()
-                                                             .charAt(0)));
+        if (Utils.VERBOSE) {
+            System.out.printf("Total price of the garden fence: %d\n", totalPrice);
+        }
+        return totalPrice;
+    }
+
+    /**
+     * Regions of the farm and their measurements, all computed in a single pass over the
+     * plots in raster order.
+     * <p>
+     * Each plot is joined with its left and upper neighbour if they grow the same plant,
+     * which labels the regions with a union-find. Everything else only depends on the
+     * plots around the plot itself:
+     * <ul>
+     *     <li>the perimeter grows by one for each side facing a different plant</li>
+     *     <li>the number of walls of a region equals the number of its corners, and each
+     *     of the four corners of a plot is a corner of the region if the two plots along
+     *     its sides both differ from it (outer corner) or both match it while the plot
+     *     on the diagonal differs (inner corner)</li>
+     * </ul>
+     * These are added to the set of the plot and the sums of two sets are added together
+     * whenever they are merged, so the representative of each region ends up with the
+     * totals of the whole region.
+     */
+    private static final class GardenRegions {
+        private final UnionFind plots;
+        private final int[] perimeters;
+        private final int[] corners;
+
+        GardenRegions(IntGrid farmMap) {
+            this.plots = new UnionFind(farmMap.size());
+            this.perimeters = new int[farmMap.size()];
+            this.corners = new int[farmMap.size()];
+            for (int y = 0; y < farmMap.height(); y++) {
+                for (int x = 0; x < farmMap.width(); x++) {
+                    int plot = farmMap.index(x, y);
+                    int plant = farmMap.get(plot);
+                    boolean up = hasPlant(farmMap, x, y - 1, plant);
+                    boolean down = hasPlant(farmMap, x, y + 1, plant);
+                    boolean left = hasPlant(farmMap, x - 1, y, plant);
+                    boolean right = hasPlant(farmMap, x + 1, y, plant);
+                    perimeters[plot] = (up ? 0 : 1) + (down ? 0 : 1) + (left ? 0 : 1) + (right ? 0 : 1);
+                    corners[plot] = corner(up, left, hasPlant(farmMap, x - 1, y - 1, plant))
+                                    + corner(up, right, hasPlant(farmMap, x + 1, y - 1, plant))
+                                    + corner(down, left, hasPlant(farmMap, x - 1, y + 1, plant))
+                                    + corner(down, right, hasPlant(farmMap, x + 1, y + 1, plant));
+                    if (left) {
+                        merge(plot, farmMap.index(x - 1, y));
+                    }
+                    if (up) {
+                        merge(plot, farmMap.index(x, y - 1));
                     }
                 }
             }
         }
-        return mapCopy;
-    }
 
-    private List<List<Pair<FarmLand, Point>>> findDistinctRegions(List<List<FarmLand>> farmMapClassified) {
-        List<List<Pair<FarmLand, Point>>> distinctRegions = new ArrayList<>();
-        LinkedHashSet<Point> pointsToVisit = new LinkedHashSet<>();
-        int width = farmMapClassified.get(0).size();
-        for (int i = 0; i < farmMapClassified.size(); i++) {
-            for (int j = 0; j < width; j++) {
-                Point location = new Point(j, i);
-                FarmLand land = location.indexGrid(farmMapClassified);
-                if (land instanceof GardenPlot || land instanceof BetweenLand) {
-                    pointsToVisit.add(location);
-                }
-            }
+        private static boolean hasPlant(IntGrid farmMap, int x, int y, int plant) {
+            return farmMap.isInside(x, y) && farmMap.get(x, y) == plant;
         }
 
-        List<Pair<FarmLand, Point>> currentRegion = new ArrayList<>();
-        while (!pointsToVisit.isEmpty()) {
-            System.out.println(pointsToVisit.size());
-            final var regionStart = pointsToVisit.removeFirst();
-            currentRegion.add(Pair.of(regionStart.indexGrid(farmMapClassified), regionStart));
-
-            List<Point> neighboursToVisit = regionStart.getNeighbourLocationsInsideGrid(
-                    farmMapClassified).stream().filter(pointsToVisit::contains).toList();
-
-            Deque<Point> pointsToTraverse = new ArrayDeque<>(neighboursToVisit);
+        /**
+         * @return 1 if the corner between the two sides of a plot is a corner of its region.
+         */
+        private static int corner(boolean firstSide, boolean secondSide, boolean diagonal) {
+            boolean outer = !firstSide && !secondSide;
+            boolean inner = firstSide && secondSide && !diagonal;
+            return outer || inner ? 1 : 0;
+        }
 
-            while (!pointsToTraverse.isEmpty()) {
-                final var curr = pointsToTraverse.removeFirst();
-                currentRegion.add(Pair.of(curr.indexGrid(farmMapClassified), curr));
-                pointsToVisit.remove(curr);
-                List<Point> neighbours = curr.getNeighbourLocationsInsideGrid(farmMapClassified)
-                        .stream()
-                        .filter(pointsToVisit::contains)
-                        .filter(Predicate.not(pointsToTraverse::contains))
-                        .toList();
-                pointsToTraverse.addAll(neighbours);
+        private void merge(int first, int second) {
+            int firstRoot = plots.find(first);
+            int secondRoot = plots.find(second);
+            if (firstRoot == secondRoot) {
+                return;
             }
-
-            distinctRegions.add(currentRegion);
-            currentRegion = new ArrayList<>();
+            int root = plots.union(firstRoot, secondRoot);
+            int merged = root == firstRoot ? secondRoot : firstRoot;
+            perimeters[root] += perimeters[merged];
+            corners[root] += corners[merged];
         }
-        return distinctRegions;
-    }
 
-    private int getPrice(int area, int perimeter) {
-        return area * perimeter;
-    }
-
-    private int getPriceWithWallCount(int area, int wallCount) {
-        return area * wallCount;
-    }
-
-    static private Pair<Integer, Integer> calculateAreaAndPerimeter(Collection<FarmLand> region) {
-        int area = (int) region.stream().filter(farmLand -> farmLand instanceof GardenPlot).count();
-        int betweenPlotsCount = (int) region.stream()
-                .filter(farmLand -> farmLand instanceof BetweenLand)
-                .count();
-
-        int perimeter = 4 * area - 2 * betweenPlotsCount;
-        return Pair.of(area, perimeter);
-    }
-
-    private List<List<FarmLand>> getFarmMapCopy(List<List<FarmLand>> grid) {
-        List<List<FarmLand>> copy = new ArrayList<>();
-        for (final var row : grid) {
-            copy.add(new ArrayList<>(row.stream().map(FarmLand::scuffedClone).toList()));
+        /**
+         * @return true for exactly one plot of each region, its representative.
+         */
+        boolean isRegionRoot(int plot) {
+            return plots.find(plot) == plot;
         }
-        return copy;
-    }
-
 
-    private <T extends FarmLand> String printFarmMap(List<List<T>> farmMap) {
-        return farmMap.stream()
-                .map(row -> row.stream().map(FarmLand::toString).collect(Collectors.joining("")))
-                .collect(Collectors.joining("\n"));
-    }
-
-    private List<List<FarmLand>> readFarmMap(Stream<String> input) {
-        return input.map(row -> row.chars()
-                .mapToObj(c -> (FarmLand) new GardenPlot((char) c))
-                .toList()).toList();
-    }
-
-    private abstract sealed class FarmLand permits GardenPlot, Fence, BetweenLand, Empty {
-        public FarmLand scuffedClone() {
-            return switch (this) {
-                case BetweenLand betweenLand -> new BetweenLand(betweenLand.type);
-                case Empty empty -> new Empty();
-                case Fence fence -> new Fence();
-                case GardenPlot gardenPlot -> new GardenPlot(gardenPlot.type);
-            };
+        int area(int plot) {
+            return plots.sizeOf(plot);
         }
-    }
-
-    @AllArgsConstructor
-    private final class GardenPlot extends FarmLand {
-        public final char type;
-        public int distinctRegionId;
 
-        public GardenPlot(char type) {
-            this.type = type;
+        int perimeter(int plot) {
+            return perimeters[plots.find(plot)];
         }
 
-        @Override
-        public String toString() {
-            if (distinctRegionId != 0) {
-                return "(%s, %d)".formatted(type, distinctRegionId);
-            }
-            return String.valueOf(type);
+        int wallCount(int plot) {
+            return corners[plots.find(plot)];
         }
     }
 
-    private final class Fence extends FarmLand {
-        @Override
-        public String toString() {
-            return "#";
-        }
+    private long getPrice(int area, int perimeter) {
+        return (long) area * perimeter;
     }
 
-    @AllArgsConstructor
-    private final class BetweenLand extends FarmLand {
-        public final char type;
-        public int distinctRegionId;
-
-        public BetweenLand(char type) {
-            this.type = type;
-        }
+    private long getPriceWithWallCount(int area, int wallCount) {
+        return (long) area * wallCount;
+    }
 
-        @Override
-        public String toString() {
-            return String.valueOf(type).toLowerCase();
+    private String printFarmMap(IntGrid farmMap) {
+        StringBuilder builder = new StringBuilder();
+        for (int y = 0; y < farmMap.height(); y++) {
+            if (y > 0) {
+                builder.append('\n');
+            }
+            for (int x = 0; x < farmMap.width(); x++) {
+                builder.append((char) farmMap.get(x, y));
+            }
         }
+        return builder.toString();
     }
 
-    private final class Empty extends FarmLand {
-        @Override
-        public String toString() {
-            return "_";
+    /**
+     * @return Grid holding the character of the plant type for each of the plots.
+     */
+    private IntGrid readFarmMap(MappedInput input) {
+        MappedInput.LineCursor line = input.lines();
+        IntGrid farmMap = null;
+        while (line.next()) {
+            if (farmMap == null) {
+                farmMap = new IntGrid(line.length(), input.lineCount());
+            }
+            for (int x = 0; x < line.length(); x++) {
+                farmMap.set(x, line.index(), line.charAt(x));
+            }
         }
+        assert farmMap != null : "Farm land map cannot be empty";
+        return farmMap;
     }
 }
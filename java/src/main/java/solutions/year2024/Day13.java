@@ -10,14 +10,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day13 implements Solution {
+public class Day13 implements Solution<Long, Long> {
 
     @Override
-    public void firstPart(String inputFile) {
+    public Long solveFirstPart(String inputFile) {
 
         List<Triple<Button, Button, Point>> machines = parseClawMachines(Utils.readInputAsStream(
                 inputFile));
-        System.out.println(Utils.toStringLineByLine(machines));
+        if (Utils.VERBOSE) {
+            System.out.println(Utils.toStringLineByLine(machines));
+        }
 
         AtomicInteger progress = new AtomicInteger();
         AtomicInteger solutionsFound = new AtomicInteger();
@@ -25,7 +27,9 @@ public class Day13 implements Solution {
                 .map(Day13::findCheapestSolutionCost)
                 .peek(maybeCost -> {
                     int curr = progress.incrementAndGet();
-                    System.out.printf("Processed (%d/%d) machines.\n", curr, machines.size());
+                    if (Utils.VERBOSE) {
+                        System.out.printf("Processed (%d/%d) machines.\n", curr, machines.size());
+                    }
                     if (maybeCost.isPresent()) {
                         solutionsFound.incrementAndGet();
                     }
@@ -37,15 +41,20 @@ public class Day13 implements Solution {
                 .get();
 
 
-        System.out.printf("Solutions found: %d%n", solutionsFound.get());
-        System.out.printf("Minimum tokens required to win all possible prices: %d", totalCost);
+        if (Utils.VERBOSE) {
+            System.out.printf("Solutions found: %d%n", solutionsFound.get());
+            System.out.printf("Minimum tokens required to win all possible prices: %d", totalCost);
+        }
+        return totalCost;
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public Long solveSecondPart(String inputFile) {
         List<Triple<Button, Button, Point>> machines = parseClawMachines(Utils.readInputAsStream(
                 inputFile));
-        System.out.println(Utils.toStringLineByLine(machines));
+        if (Utils.VERBOSE) {
+            System.out.println(Utils.toStringLineByLine(machines));
+        }
 
         AtomicInteger progress = new AtomicInteger();
         AtomicInteger solutionsFound = new AtomicInteger();
@@ -56,7 +65,9 @@ public class Day13 implements Solution {
                 .map(Day13::findCheapestSolutionClosedForm)
                 .peek(maybeCost -> {
                     int curr = progress.incrementAndGet();
-                    System.out.printf("Processed (%d/%d) machines.\n", curr, machines.size());
+                    if (Utils.VERBOSE) {
+                        System.out.printf("Processed (%d/%d) machines.\n", curr, machines.size());
+                    }
                     if (maybeCost.isPresent()) {
                         solutionsFound.incrementAndGet();
                     }
@@ -66,8 +77,11 @@ public class Day13 implements Solution {
                 .reduce(Long::sum)
                 .get();
 
-        System.out.printf("Solutions found: %d%n", solutionsFound.get());
-        System.out.printf("Minimum tokens required to win all possible prices: %d", totalCost);
+        if (Utils.VERBOSE) {
+            System.out.printf("Solutions found: %d%n", solutionsFound.get());
+            System.out.printf("Minimum tokens required to win all possible prices: %d", totalCost);
+        }
+        return totalCost;
     }
 
     private static Point.BigPoint getPartTwoDistantPoint(Point originalPrize) {
@@ -105,7 +119,9 @@ public class Day13 implements Solution {
         long bPresses = (xA * yP - xP * yA) / determinant;
 
         long cost = 3 * aPresses + bPresses;
-        System.out.printf("Total cost using the closed-form solution: %d%n", cost);
+        if (Utils.VERBOSE) {
+            System.out.printf("Total cost using the closed-form solution: %d%n", cost);
+        }
         return Optional.of(cost);
     }
 
@@ -135,10 +151,12 @@ public class Day13 implements Solution {
         int searchSpaceBound = Math.min(maxPressBruteForceConstraint, MAXIMUM_BUTTON_PRESSES);
 
 
-        System.out.printf(
-                "Initiating brute-force for button %s over key-press search space: [1,%d]\n",
-                bruteForceCandidate,
-                searchSpaceBound);
+        if (Utils.VERBOSE) {
+            System.out.printf(
+                    "Initiating brute-force for button %s over key-press search space: [1,%d]\n",
+                    bruteForceCandidate,
+                    searchSpaceBound);
+        }
 
         Set<Integer> solutionCosts = new HashSet<>();
         for (int pressCount = 0; pressCount <= searchSpaceBound; pressCount++) {
@@ -166,19 +184,21 @@ public class Day13 implements Solution {
                 if (secondButtonPressesY == secondButtonPresses) {
                     int cost = bruteForceCandidate.cost * pressCount
                                + constrainedButton.cost * secondButtonPresses;
-                    System.out.printf(
-                            "Found solution to reach %s:\nPress %s %d times.\nPress %s %d times"
-                            + ".\nCost: %d\nCheck X: %d\nCheck Y: %d\n",
-                            prize,
-                            bruteForceCandidate,
-                            pressCount,
-                            constrainedButton,
-                            secondButtonPresses,
-                            cost,
-                            bruteForceCandidate.clawMovement.x() * pressCount
-                            + constrainedButton.clawMovement.x() * secondButtonPresses,
-                            bruteForceCandidate.clawMovement.y() * pressCount
-                            + constrainedButton.clawMovement.y() * secondButtonPresses);
+                    if (Utils.VERBOSE) {
+                        System.out.printf(
+                                "Found solution to reach %s:\nPress %s %d times.\nPress %s %d times"
+                                + ".\nCost: %d\nCheck X: %d\nCheck Y: %d\n",
+                                prize,
+                                bruteForceCandidate,
+                                pressCount,
+                                constrainedButton,
+                                secondButtonPresses,
+                                cost,
+                                bruteForceCandidate.clawMovement.x() * pressCount
+                                + constrainedButton.clawMovement.x() * secondButtonPresses,
+                                bruteForceCandidate.clawMovement.y() * pressCount
+                                + constrainedButton.clawMovement.y() * secondButtonPresses);
+                    }
                     solutionCosts.add(cost);
                 }
 
@@ -190,7 +210,9 @@ public class Day13 implements Solution {
         }
 
         int minimumCost = solutionCosts.stream().min(Comparator.comparingInt(x -> x)).get();
-        System.out.printf("Minimum cost: %d\n", minimumCost);
+        if (Utils.VERBOSE) {
+            System.out.printf("Minimum cost: %d\n", minimumCost);
+        }
         return Optional.of(minimumCost);
     }
 
@@ -11,15 +11,17 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public class Day14 implements Solution {
+public class Day14 implements Solution<Long, Integer> {
     private static final int SIMULATE_SECONDS = 100;
     private static final int SIMULATE_SECONDS_PART_2 = 1000000000;
 
     @Override
-    public void firstPart(String inputFile) {
+    public Long solveFirstPart(String inputFile) {
 
         List<Robot> robots = readRobots(Utils.readInputAsStream(inputFile));
-        System.out.println(Utils.toStringLineByLine(robots));
+        if (Utils.VERBOSE) {
+            System.out.println(Utils.toStringLineByLine(robots));
+        }
 
         int bathroomWidth;
         int bathroomHeight;
@@ -33,16 +35,20 @@ public class Day14 implements Solution {
             bathroomHeight = 103;
         }
 
-        System.out.println("Starting simulation.");
+        if (Utils.VERBOSE) {
+            System.out.println("Starting simulation.");
+        }
         for (int i = 0; i < SIMULATE_SECONDS; i++) {
             robots.forEach(r -> r.simulateMovement(bathroomWidth, bathroomHeight));
             List<List<Integer>> bathroomMap = initializeEmptyBathroom(bathroomWidth,
                                                                       bathroomHeight);
             traceRobots(bathroomMap, robots);
-            System.out.println(IntStream.range(0, bathroomWidth)
-                                       .mapToObj(x -> "=")
-                                       .collect(Collectors.joining("")));
-            System.out.println(printBathroom(bathroomMap));
+            if (Utils.VERBOSE) {
+                System.out.println(IntStream.range(0, bathroomWidth)
+                                           .mapToObj(x -> "=")
+                                           .collect(Collectors.joining("")));
+                System.out.println(printBathroom(bathroomMap));
+            }
         }
 
         Map<Robot.Quadrant, List<Robot>> robotsClassifiedIntoQuadrants = robots.stream()
@@ -59,8 +65,10 @@ public class Day14 implements Solution {
                 .reduce((x, y) -> x * y)
                 .get();
 
-        System.out.printf("Bathroom safety factor: %d\n", safetyFactor);
-
+        if (Utils.VERBOSE) {
+            System.out.printf("Bathroom safety factor: %d\n", safetyFactor);
+        }
+        return safetyFactor;
     }
 
     private static final String CHRISTMAS_TREE = """
@@ -114,20 +122,24 @@ public class Day14 implements Solution {
      * - over all iterations between 1,111400 that contain this picture
      */
     @Override
-    public void secondPart(String inputFile) {
+    public Integer solveSecondPart(String inputFile) {
         List<Robot> robots = readRobots(Utils.readInputAsStream(inputFile));
-        System.out.println(Utils.toStringLineByLine(robots));
-        TerminalScreen screen = new TerminalScreen(4);
+        if (Utils.VERBOSE) {
+            System.out.println(Utils.toStringLineByLine(robots));
+        }
         int bathroomWidth = 101;
         int bathroomHeight = 103;
 
-        System.out.println("Starting simulation.");
+        if (Utils.VERBOSE) {
+            System.out.println("Starting simulation.");
+        }
         boolean treeShapeFound = true;
 
         if (!treeShapeFound) {
             // If we don't know what the tree looks like yet, we need to iterate
             // every N steps and look at the Lanterna rendering of the bathroom
             // floor
+            TerminalScreen screen = new TerminalScreen(4);
             int chunkSize = 200;
             // If we run for this many iterations we are guaranteed not to get a tree
             // (found by manually inspecting the output)
@@ -136,7 +148,9 @@ public class Day14 implements Solution {
             int firstOccurrenceFoundAt = 111400;
             for (int i = 0; i < SIMULATE_SECONDS_PART_2; i++) {
                 robots.forEach(r -> r.simulateMovement(bathroomWidth, bathroomHeight));
-                System.out.println("Iteration number: %s".formatted(i));
+                if (Utils.VERBOSE) {
+                    System.out.println("Iteration number: %s".formatted(i));
+                }
                 // First we were skipping module and after that the threshold was found
                 if (i % chunkSize != 0 || i < noTreeBefore) {
                     continue;
@@ -154,8 +168,10 @@ public class Day14 implements Solution {
 
                 // Final number found
                 if (i == firstOccurrenceFoundAt) {
-                    System.out.println(printBathroom(bathroomMap));
-                    return;
+                    if (Utils.VERBOSE) {
+                        System.out.println(printBathroom(bathroomMap));
+                    }
+                    return i + 1;
                 }
             }
         } else {
@@ -168,7 +184,9 @@ public class Day14 implements Solution {
             int firstOccurrenceFoundAt = 111400;
             for (int i = 0; i <= firstOccurrenceFoundAt; i++) {
                 robots.forEach(r -> r.simulateMovement(bathroomWidth, bathroomHeight));
-                System.out.println("Iteration number: %s".formatted(i+1));
+                if (Utils.VERBOSE) {
+                    System.out.println("Iteration number: %s".formatted(i+1));
+                }
                 List<List<Integer>> bathroomMap = initializeEmptyBathroom(bathroomWidth,
                                                                           bathroomHeight);
                 traceRobots(bathroomMap, robots);
@@ -176,14 +194,16 @@ public class Day14 implements Solution {
                 for (int y = 0; y < bathroomHeight - treeMask.size(); y++) {
                     for (int x = 0; x < bathroomWidth - treeMask.get(0).size(); x++) {
                         if (maskMatchFound(treeMask, bathroomMap, x, y)) {
-                            System.out.println(printBathroom(bathroomMap));
-                            return;
+                            if (Utils.VERBOSE) {
+                                System.out.println(printBathroom(bathroomMap));
+                            }
+                            return i + 1;
                         }
                     }
                 }
             }
-
         }
+        return null;
     }
 
     private boolean maskMatchFound(
@@ -213,7 +233,9 @@ public class Day14 implements Solution {
                 .toList();
 
         // Check if the mask was created successfully
-        System.out.println(Utils.toStringLineByLine(mask));
+        if (Utils.VERBOSE) {
+            System.out.println(Utils.toStringLineByLine(mask));
+        }
         return mask;
     }
 
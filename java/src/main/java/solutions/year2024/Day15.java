@@ -4,6 +4,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import solutions.Solution;
 import solutions.Utils;
 import solutions.common.Direction;
+import solutions.common.EnumGrid;
 import solutions.common.Point;
 import solutions.common.TerminalScreen;
 
@@ -12,33 +13,34 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day15 implements Solution {
+public class Day15 implements Solution<Integer, Integer> {
     private static final int ROBOT_STEP_MILLIS = 25;
     private static final boolean TERMINAL_RENDERING_ENABLED = Boolean.parseBoolean(System.getenv(
             "USE_LANTERNA"));
 
 
     @Override
-    public void firstPart(String inputFile) {
-        TerminalScreen screen;
-        if (inputFile.contains("puzzle-input")) {
-            screen = new TerminalScreen(9);
-        } else {
-            screen = new TerminalScreen();
-        }
+    public Integer solveFirstPart(String inputFile) {
+        TerminalScreen screen = openScreen(inputFile);
         final var input = readInput(Utils.readInputAsStream(inputFile));
         var warehouse = input.getLeft();
         final List<Direction> robotMoves = input.getRight();
 
-        System.out.println(Utils.toStringLineByLine(warehouse));
-        System.out.println(robotMoves);
+        if (Utils.VERBOSE) {
+            System.out.println(warehouse);
+            System.out.println(robotMoves);
+        }
         printWarehouse(warehouse, screen);
 
         Point robotLocation = findRobot(warehouse).get();
-        System.out.println(robotLocation);
+        if (Utils.VERBOSE) {
+            System.out.println(robotLocation);
+        }
 
         for (int i = 0; i < robotMoves.size(); i++) {
-            System.out.println("Processing move: (%d/%d)".formatted(i, robotMoves.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Processing move: (%d/%d)".formatted(i, robotMoves.size()));
+            }
             robotLocation = moveRobot(robotLocation, robotMoves.get(i), warehouse);
             if (TERMINAL_RENDERING_ENABLED) {
                 printWarehouse(warehouse, screen);
@@ -57,18 +59,15 @@ public class Day15 implements Solution {
                 findBoxGoodsPositioningSystemCoordinates(warehouse);
 
         int sum = coordinates.stream().map(Pair::getRight).reduce(Integer::sum).get();
-        System.out.println("Sum of boxes' GPS coordinates: %d".formatted(sum));
-
+        if (Utils.VERBOSE) {
+            System.out.println("Sum of boxes' GPS coordinates: %d".formatted(sum));
+        }
+        return sum;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        TerminalScreen screen;
-        if (inputFile.contains("puzzle-input")) {
-            screen = new TerminalScreen(9);
-        } else {
-            screen = new TerminalScreen();
-        }
+    public Integer solveSecondPart(String inputFile) {
+        TerminalScreen screen = openScreen(inputFile);
         final var input = readInput(Utils.readInputAsStream(inputFile));
 
         var warehouse = input.getLeft();
@@ -77,13 +76,17 @@ public class Day15 implements Solution {
         final List<Direction> robotMoves = input.getRight();
 
         Point robotLocation = findRobot(warehouse).get();
-        System.out.println(robotLocation);
+        if (Utils.VERBOSE) {
+            System.out.println(robotLocation);
+        }
 
         for (int i = 0; i < robotMoves.size(); i++) {
-            System.out.println("Processing move: (%d/%d) in direction: %s".formatted(i,
-                                                                                     robotMoves.size(),
-                                                                                     robotMoves.get(
-                                                                                             i)));
+            if (Utils.VERBOSE) {
+                System.out.println("Processing move: (%d/%d) in direction: %s".formatted(i,
+                                                                                         robotMoves.size(),
+                                                                                         robotMoves.get(
+                                                                                                 i)));
+            }
             robotLocation = moveRobotSecondPart(robotLocation, robotMoves.get(i), warehouse);
             if (TERMINAL_RENDERING_ENABLED) {
                 printWarehouse(warehouse, screen);
@@ -103,17 +106,25 @@ public class Day15 implements Solution {
                 warehouse);
 
         int sum = coordinates.stream().map(Pair::getRight).reduce(Integer::sum).get();
-        System.out.println("Sum of boxes' GPS coordinates: %d".formatted(sum));
+        if (Utils.VERBOSE) {
+            System.out.println("Sum of boxes' GPS coordinates: %d".formatted(sum));
+        }
+        return sum;
     }
 
 
-    private List<List<WarehouseLocation>> scaleUpWarehouse(List<List<WarehouseLocation>> warehouse) {
-        return warehouse.stream()
-                .map(line -> line.stream()
-                        .map(this::scaleUpLocation)
-                        .flatMap(List::stream)
-                        .collect(Collectors.toList()))
-                .collect(Collectors.toList());
+    private EnumGrid<WarehouseLocation> scaleUpWarehouse(EnumGrid<WarehouseLocation> warehouse) {
+        EnumGrid<WarehouseLocation> scaledUp = new EnumGrid<>(2 * warehouse.width(),
+                                                              warehouse.height(),
+                                                              WarehouseLocation.class);
+        for (int y = 0; y < warehouse.height(); y++) {
+            for (int x = 0; x < warehouse.width(); x++) {
+                List<WarehouseLocation> scaledUpLocation = scaleUpLocation(warehouse.get(x, y));
+                scaledUp.set(2 * x, y, scaledUpLocation.get(0));
+                scaledUp.set(2 * x + 1, y, scaledUpLocation.get(1));
+            }
+        }
+        return scaledUp;
     }
 
     private List<WarehouseLocation> scaleUpLocation(WarehouseLocation loc) {
@@ -127,11 +138,11 @@ public class Day15 implements Solution {
         };
     }
 
-    private List<Pair<Point, Integer>> findBoxGoodsPositioningSystemCoordinates(List<List<WarehouseLocation>> warehouse) {
+    private List<Pair<Point, Integer>> findBoxGoodsPositioningSystemCoordinates(EnumGrid<WarehouseLocation> warehouse) {
         List<Pair<Point, Integer>> output = new ArrayList<>();
-        for (int y = 0; y < warehouse.size(); y++) {
-            for (int x = 0; x < warehouse.get(0).size(); x++) {
-                if (warehouse.get(y).get(x).equals(WarehouseLocation.BOX)) {
+        for (int y = 0; y < warehouse.height(); y++) {
+            for (int x = 0; x < warehouse.width(); x++) {
+                if (warehouse.get(x, y).equals(WarehouseLocation.BOX)) {
                     output.add(Pair.of(new Point(x, y), 100 * y + x));
                 }
             }
@@ -139,11 +150,11 @@ public class Day15 implements Solution {
         return output;
     }
 
-    private List<Pair<Point, Integer>> findBoxGoodsPositioningSystemCoordinatesPart2(List<List<WarehouseLocation>> warehouse) {
+    private List<Pair<Point, Integer>> findBoxGoodsPositioningSystemCoordinatesPart2(EnumGrid<WarehouseLocation> warehouse) {
         List<Pair<Point, Integer>> output = new ArrayList<>();
-        for (int y = 0; y < warehouse.size(); y++) {
-            for (int x = 0; x < warehouse.get(0).size(); x++) {
-                if (warehouse.get(y).get(x).equals(WarehouseLocation.BOX_LEFT)) {
+        for (int y = 0; y < warehouse.height(); y++) {
+            for (int x = 0; x < warehouse.width(); x++) {
+                if (warehouse.get(x, y).equals(WarehouseLocation.BOX_LEFT)) {
                     output.add(Pair.of(new Point(x, y), 100 * y + x));
                 }
             }
@@ -154,22 +165,22 @@ public class Day15 implements Solution {
     private Point moveRobotSecondPart(
             Point robotLocation,
             Direction move,
-            List<List<WarehouseLocation>> warehouse
+            EnumGrid<WarehouseLocation> warehouse
     ) {
         // Here projecting rays won't work. We need to try and push and if possible do it,
         // If not roll back.
-        List<List<WarehouseLocation>> warehouseCopy = Utils.getMutableGridCopy(warehouse);
+        EnumGrid<WarehouseLocation> warehouseCopy = warehouse.copy();
 
         Point newLocation = robotLocation.moveInDirection(move);
 
         // Easy case we simply move forward
-        if (newLocation.indexGrid(warehouse).equals(WarehouseLocation.EMPTY)) {
-            robotLocation.indexGridAndSet(warehouse, WarehouseLocation.EMPTY);
-            newLocation.indexGridAndSet(warehouse, WarehouseLocation.ROBOT);
+        if (warehouse.get(newLocation).equals(WarehouseLocation.EMPTY)) {
+            warehouse.set(robotLocation, WarehouseLocation.EMPTY);
+            warehouse.set(newLocation, WarehouseLocation.ROBOT);
             return newLocation;
         }
 
-        if (newLocation.indexGrid(warehouse).equals(WarehouseLocation.WALL)) {
+        if (warehouse.get(newLocation).equals(WarehouseLocation.WALL)) {
             return robotLocation;
         }
 
@@ -179,7 +190,7 @@ public class Day15 implements Solution {
                                                                             robotLocation,
                                                                             warehouse);
             final List<WarehouseLocation> stateBeforeMove = pathToTheClosestWallOrEmpty.stream()
-                    .map(p -> p.indexGrid(warehouse))
+                    .map(warehouse::get)
                     .toList();
             final var maybeNewState = simulatePushSecondPart(stateBeforeMove);
             if (maybeNewState.isEmpty()) {
@@ -189,8 +200,7 @@ public class Day15 implements Solution {
             final List<WarehouseLocation> stateAfterMove = maybeNewState.get();
             for (int i = 0; i < pathToTheClosestWallOrEmpty.size(); i++) {
                 if (!Objects.equals(stateAfterMove.get(i), stateBeforeMove.get(i))) {
-                    pathToTheClosestWallOrEmpty.get(i)
-                            .indexGridAndSet(warehouse, stateAfterMove.get(i));
+                    warehouse.set(pathToTheClosestWallOrEmpty.get(i), stateAfterMove.get(i));
                 }
             }
             return robotLocation.moveInDirection(move);
@@ -208,7 +218,7 @@ public class Day15 implements Solution {
                                                                         warehouse);
 
         final List<WarehouseLocation> stateBeforeMove = pathToTheClosestWallOrEmpty.stream()
-                .map(p -> p.indexGrid(warehouse))
+                .map(warehouse::get)
                 .toList();
 
         if (stateBeforeMove.stream()
@@ -221,25 +231,29 @@ public class Day15 implements Solution {
         List<Point> updatedLocations = new ArrayList<>();
 
         do {
-            System.out.println(cellsToMove);
+            if (Utils.VERBOSE) {
+                System.out.println(cellsToMove);
+            }
             var movedCell = cellsToMove.pollFirst();
             newLocation = movedCell.getLeft();
             var movedCellValue = movedCell.getRight();
-            System.out.println("Processing cell %s at %s".formatted(movedCellValue, newLocation));
-            if (newLocation.indexGrid(warehouse).equals(WarehouseLocation.WALL)) {
+            if (Utils.VERBOSE) {
+                System.out.println("Processing cell %s at %s".formatted(movedCellValue, newLocation));
+            }
+            if (warehouse.get(newLocation).equals(WarehouseLocation.WALL)) {
                 // Attempt at moving has failed, one box or the robot itself
                 // cannot be moved.
                 return robotLocation;
             }
-            final var impactedCell = newLocation.indexGrid(warehouse);
-            newLocation.indexGridAndSet(warehouseCopy, movedCellValue);
+            final var impactedCell = warehouse.get(newLocation);
+            warehouseCopy.set(newLocation, movedCellValue);
             updatedLocations.add(newLocation);
             if (impactedCell.equals(WarehouseLocation.BOX_LEFT)) {
                 // The cell that was previously occupied by the right part of the box needs to be
                 // emptied but only if it hasn't already been set by other moved box
                 if (!updatedLocations.contains(newLocation.moveInDirection(Direction.RIGHT))) {
-                    newLocation.moveInDirection(Direction.RIGHT)
-                            .indexGridAndSet(warehouseCopy, WarehouseLocation.EMPTY);
+                    warehouseCopy.set(newLocation.moveInDirection(Direction.RIGHT),
+                                      WarehouseLocation.EMPTY);
                 }
                 updatedLocations.add(newLocation.moveInDirection(Direction.RIGHT));
                 updatedLocations.add(newLocation);
@@ -252,8 +266,8 @@ public class Day15 implements Solution {
                 // The cell that was previously occupied by the left part of the box needs to be
                 // emptied
                 if (!updatedLocations.contains(newLocation.moveInDirection(Direction.LEFT))) {
-                    newLocation.moveInDirection(Direction.LEFT)
-                            .indexGridAndSet(warehouseCopy, WarehouseLocation.EMPTY);
+                    warehouseCopy.set(newLocation.moveInDirection(Direction.LEFT),
+                                      WarehouseLocation.EMPTY);
                 }
                 updatedLocations.add(newLocation.moveInDirection(Direction.LEFT));
                 cellsToMove.add(Pair.of(newLocation.moveInDirection(move)
@@ -265,24 +279,24 @@ public class Day15 implements Solution {
         } while (!cellsToMove.isEmpty());
 
         for (final var p : updatedLocations) {
-            p.indexGridAndSet(warehouse, p.indexGrid(warehouseCopy));
+            warehouse.set(p, warehouseCopy.get(p));
         }
 
 
-        robotLocation.indexGridAndSet(warehouse, WarehouseLocation.EMPTY);
+        warehouse.set(robotLocation, WarehouseLocation.EMPTY);
         return robotLocation.moveInDirection(move);
     }
 
     private Point moveRobot(
             Point robotLocation,
             Direction move,
-            List<List<WarehouseLocation>> warehouse
+            EnumGrid<WarehouseLocation> warehouse
     ) {
         List<Point> pathToTheClosestWallOrEmpty = projectRayInDirection(move,
                                                                         robotLocation,
                                                                         warehouse);
         final List<WarehouseLocation> stateBeforeMove = pathToTheClosestWallOrEmpty.stream()
-                .map(p -> p.indexGrid(warehouse))
+                .map(warehouse::get)
                 .toList();
         final var maybeNewState = simulatePush(stateBeforeMove);
         if (maybeNewState.isEmpty()) {
@@ -292,8 +306,7 @@ public class Day15 implements Solution {
         final List<WarehouseLocation> stateAfterMove = maybeNewState.get();
         for (int i = 0; i < pathToTheClosestWallOrEmpty.size(); i++) {
             if (!Objects.equals(stateAfterMove.get(i), stateBeforeMove.get(i))) {
-                pathToTheClosestWallOrEmpty.get(i)
-                        .indexGridAndSet(warehouse, stateAfterMove.get(i));
+                warehouse.set(pathToTheClosestWallOrEmpty.get(i), stateAfterMove.get(i));
             }
         }
         return robotLocation.moveInDirection(move);
@@ -371,25 +384,27 @@ public class Day15 implements Solution {
                 }
             }
         }
-        System.out.println(stateBeforeMove);
-        System.out.println(newState);
+        if (Utils.VERBOSE) {
+            System.out.println(stateBeforeMove);
+            System.out.println(newState);
+        }
         return Optional.of(newState);
     }
 
     private List<Point> projectRayInDirection(
             Direction direction,
             Point robotLocation,
-            List<List<WarehouseLocation>> warehouse
+            EnumGrid<WarehouseLocation> warehouse
     ) {
         List<Point> ray = new ArrayList<>();
         ray.add(robotLocation);
         Point current = robotLocation.moveInDirection(direction);
-        while (current.indexGrid(warehouse) != WarehouseLocation.WALL) {
+        while (warehouse.get(current) != WarehouseLocation.WALL) {
             ray.add(current);
             // Once the ray has at least one empty box, nothing else after
             // that will be affected by the robot push so we don't need
             // to project any further.
-            if (current.indexGrid(warehouse).equals(WarehouseLocation.EMPTY)) {
+            if (warehouse.get(current).equals(WarehouseLocation.EMPTY)) {
                 return ray;
             }
             current = current.moveInDirection(direction);
@@ -397,15 +412,28 @@ public class Day15 implements Solution {
         return ray;
     }
 
-    private void printWarehouse(List<List<WarehouseLocation>> warehouse, TerminalScreen screen) {
+    /**
+     * @return the screen to render the warehouse into, or null if terminal rendering is disabled
+     */
+    private static TerminalScreen openScreen(String inputFile) {
+        if (!TERMINAL_RENDERING_ENABLED) {
+            return null;
+        }
+        if (inputFile.contains("puzzle-input")) {
+            return new TerminalScreen(9);
+        }
+        return new TerminalScreen();
+    }
+
+    private void printWarehouse(EnumGrid<WarehouseLocation> warehouse, TerminalScreen screen) {
+        if (screen == null) {
+            return;
+        }
         try {
             screen.clearScreen();
             screen.resetCursorPosition();
-            for (List<WarehouseLocation> line : warehouse) {
-                String lineStr = line.stream()
-                        .map(WarehouseLocation::toString)
-                        .collect(Collectors.joining(""));
-                screen.printLine(lineStr);
+            for (String line : warehouse.toString().split("\n")) {
+                screen.printLine(line);
             }
             screen.flushChanges();
         } catch (IOException e) {
@@ -413,19 +441,16 @@ public class Day15 implements Solution {
         }
     }
 
-    private Optional<Point> findRobot(List<List<WarehouseLocation>> warehouse) {
-        for (int y = 0; y < warehouse.size(); y++) {
-            for (int x = 0; x < warehouse.get(0).size(); x++) {
-                if (warehouse.get(y).get(x).equals(WarehouseLocation.ROBOT)) {
-                    return Optional.of(new Point(x, y));
-                }
-            }
+    private Optional<Point> findRobot(EnumGrid<WarehouseLocation> warehouse) {
+        int robot = warehouse.indexOf(WarehouseLocation.ROBOT);
+        if (robot < 0) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.of(warehouse.pointAt(robot));
     }
 
 
-    private Pair<List<List<WarehouseLocation>>, List<Direction>> readInput(Stream<String> input) {
+    private Pair<EnumGrid<WarehouseLocation>, List<Direction>> readInput(Stream<String> input) {
         String fullInput = input.collect(Collectors.joining("\n"));
         String[] wareHouseMapAndMoves = fullInput.split("\n\n");
 
@@ -442,12 +467,17 @@ public class Day15 implements Solution {
         return allMoves.chars().mapToObj(c -> Direction.fromChar((char) c)).toList();
     }
 
-    private List<List<WarehouseLocation>> parseWareHouseMap(String wareHouseMap) {
-        return wareHouseMap.lines()
-                .map(l -> l.chars()
-                        .mapToObj(c -> WarehouseLocation.fromChar((char) c))
-                        .collect(Collectors.toList()))
-                .collect(Collectors.toList());
+    private EnumGrid<WarehouseLocation> parseWareHouseMap(String wareHouseMap) {
+        List<String> rows = wareHouseMap.lines().toList();
+        EnumGrid<WarehouseLocation> warehouse = new EnumGrid<>(rows.getFirst().length(),
+                                                               rows.size(),
+                                                               WarehouseLocation.class);
+        for (int y = 0; y < rows.size(); y++) {
+            for (int x = 0; x < rows.get(y).length(); x++) {
+                warehouse.set(x, y, WarehouseLocation.fromChar(rows.get(y).charAt(x)));
+            }
+        }
+        return warehouse;
     }
 
     enum WarehouseLocation {
@@ -1,255 +1,210 @@
 package solutions.year2024;
 
-import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
+import solutions.common.Dijkstra;
 import solutions.common.Direction;
+import solutions.common.EnumGrid;
+import solutions.common.Grid;
 import solutions.common.Point;
 import solutions.common.TerminalScreen;
 
 import java.io.IOException;
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.function.IntPredicate;
 
-public class Day16 implements Solution {
+public class Day16 implements Solution<Integer, Integer> {
     private static final boolean USE_LANTERNA = Boolean.parseBoolean(System.getenv("USE_LANTERNA"));
     private static final int SIMULATION_TICK_MILLIS = System.getenv("SIMULATION_TICK_MILLIS")
                                                       == null ? 0 : Integer.parseInt(System.getenv(
             "SIMULATION_TICK_MILLIS"));
 
-    @Override
-    public void firstPart(String inputFile) {
-        final var maze = readMazeMap(Utils.readInputAsStream(inputFile));
+    private static final int STEP_COST = 1;
+    private static final int TURN_COST = 1000;
 
-        System.out.println(Utils.toStringLineByLine(maze));
+    @Override
+    public Integer solveFirstPart(String inputFile) {
+        final var maze = readMazeMap(Utils.mapInput(inputFile));
 
-        // Here is the strat: find all paths to the end
-        // then evaluate their cost by counting turns and lengths
-        // we need to use fancy Dijkstra here
+        if (Utils.VERBOSE) {
+            System.out.println(maze);
+        }
 
+        // Here is the strat: the state of the reindeer is its location together with the
+        // direction it is facing, moving forward and turning are the edges between the states
+        // and so the cheapest path can be found using Dijkstra.
         final var maybeStart = findStartingPoint(maze);
         if (maybeStart.isEmpty()) {
-            System.out.println("No starting point found, unable to solve the puzzle.");
-            return;
-        }
-
-        Point start = maybeStart.get();
-
-
-        // Map with references to the created points allowing for updating
-        // distance to the neighbours.
-        Map<Point, Integer> costMap = new HashMap<>();
-        Map<Point, Direction> directionMap = new HashMap<>();
-        HashSet<Point> alreadyVisited = new HashSet<>();
-        List<Point> unvisitedSet = new ArrayList<>();
-
-        for (int y = 0; y < maze.size(); y++) {
-            for (int x = 0; x < maze.get(0).size(); x++) {
-                final var curr = maze.get(y).get(x);
-                final var point = new Point(x, y);
-                if (!curr.equals(MazeCell.WALL) && !curr.equals(MazeCell.START)) {
-                    costMap.put(point, Integer.MAX_VALUE);
-                    unvisitedSet.add(point);
-                }
+            if (Utils.VERBOSE) {
+                System.out.println("No starting point found, unable to solve the puzzle.");
             }
+            return null;
         }
 
-        costMap.put(start, 0);
-        unvisitedSet.add(start);
-        directionMap.put(start, Direction.RIGHT);
+        ReindeerGraph graph = new ReindeerGraph(maze);
+        Dijkstra dijkstra = new Dijkstra(graph, false);
+        dijkstra.run(graph.state(maze.index(maybeStart.get()), Direction.RIGHT), graph.endState());
 
-        while (!unvisitedSet.isEmpty()) {
-            unvisitedSet.sort(Comparator.comparingInt(costMap::get));
-            Point curr = unvisitedSet.removeFirst();
-            int currCost = costMap.get(curr);
-            if (curr.indexGrid(maze).equals(MazeCell.END)) {
-                System.out.println("End found, cost: %s".formatted(currCost));
-                return;
-            }
-            System.out.println("Processing point: %s, current cost: %s".formatted(curr, currCost));
-            alreadyVisited.add(curr);
-            if (currCost == Integer.MAX_VALUE) {
+        int cost = dijkstra.cost(graph.endState());
+        if (cost == Dijkstra.UNREACHABLE) {
+            if (Utils.VERBOSE) {
                 System.out.println("No more nodes reachable.");
-                return;
-            }
-            Direction currDirection = directionMap.get(curr);
-            List<Pair<Point, Direction>> neighbours = getAvailableNeighbourLocations(curr,
-                                                                                     maze,
-                                                                                     alreadyVisited);
-            System.out.println("Accessible neighbours: ");
-            System.out.println(Utils.toStringLineByLine(neighbours));
-
-            // update costs based on direction relationship
-            for (final var nb : neighbours) {
-                int nbCost = costMap.get(nb.getLeft());
-                int stepCost = currDirection == nb.getRight() ? 1 : 1001;
-                int costThroughCurrent = currCost + stepCost;
-                System.out.println("Cost through current node: %s".formatted(costThroughCurrent));
-                System.out.println("Cost of neighbour: %s".formatted(nbCost));
-                costMap.put(nb.getLeft(), Math.min(nbCost, costThroughCurrent));
-                System.out.println(costMap.get(nb.getLeft()));
-                directionMap.put(nb.getLeft(), nb.getRight());
             }
+            return null;
+        }
+        if (Utils.VERBOSE) {
+            System.out.println("End found, cost: %s".formatted(cost));
         }
+        return cost;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        final var maze = readMazeMap(Utils.readInputAsStream(inputFile));
+    public Integer solveSecondPart(String inputFile) {
+        final var maze = readMazeMap(Utils.mapInput(inputFile));
 
-        System.out.println(Utils.toStringLineByLine(maze));
+        if (Utils.VERBOSE) {
+            System.out.println(maze);
+        }
 
 
         final var maybeStart = findStartingPoint(maze);
         if (maybeStart.isEmpty()) {
-            System.out.println("No starting point found, unable to solve the puzzle.");
-            return;
+            if (Utils.VERBOSE) {
+                System.out.println("No starting point found, unable to solve the puzzle.");
+            }
+            return null;
         }
 
-        Point start = maybeStart.get();
+        ReindeerGraph graph = new ReindeerGraph(maze);
+        // We need to track all parents through which a state can be reached at the lowest cost,
+        // so that we can then trace back all of the best paths and not only one of them.
+        Dijkstra dijkstra = new Dijkstra(graph, true);
 
+        TerminalScreen screen = USE_LANTERNA ? new TerminalScreen() : null;
+        if (USE_LANTERNA) {
+            dijkstra.setSettledListener(state -> {
+                try {
+                    Thread.sleep(SIMULATION_TICK_MILLIS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                visualiseCells(screen, maze, cell -> graph.isQueued(dijkstra, cell));
+            });
+        }
 
-        // Map with references to the created points allowing for updating
-        // distance to the neighbours.
-        Map<Pair<Point, Direction>, Integer> costMap = new HashMap<>();
-        Map<Point, Direction> directionMap = new HashMap<>();
-        List<Pair<Point, Direction>> unvisitedSet = new ArrayList<>();
+        dijkstra.run(graph.state(maze.index(maybeStart.get()), Direction.RIGHT), graph.endState());
+        if (Utils.VERBOSE) {
+            System.out.println("Cost at the end: %s".formatted(dijkstra.cost(graph.endState())));
+        }
+        if (dijkstra.cost(graph.endState()) == Dijkstra.UNREACHABLE) {
+            if (Utils.VERBOSE) {
+                System.out.println("No more nodes reachable.");
+            }
+            return null;
+        }
 
+        // Now we trace back all paths that end at the end, the states of the same cell
+        // facing different directions collapse into a single location.
+        BitSet statesOnBestPaths = dijkstra.nodesOnShortestPaths(graph.endState());
+        BitSet uniqueCellsOnBestPaths = new BitSet(maze.size());
+        statesOnBestPaths.stream()
+                .filter(state -> state != graph.endState())
+                .forEach(state -> uniqueCellsOnBestPaths.set(graph.cell(state)));
 
-        for (int y = 0; y < maze.size(); y++) {
-            for (int x = 0; x < maze.get(0).size(); x++) {
-                final var curr = maze.get(y).get(x);
-                final var point = new Point(x, y);
-                if (!curr.equals(MazeCell.WALL) && !curr.equals(MazeCell.START)) {
-                    for (var dir : Direction.values()) {
-                        costMap.put(Pair.of(point, dir), Integer.MAX_VALUE);
-                        unvisitedSet.add(Pair.of(point, dir));
-                    }
-                }
-            }
+        if (USE_LANTERNA) {
+            visualiseCells(screen, maze, uniqueCellsOnBestPaths::get);
         }
 
-        costMap.put(Pair.of(start, Direction.RIGHT), 0);
-        unvisitedSet.add(Pair.of(start, Direction.RIGHT));
-        Map<Pair<Point, Direction>, List<Pair<Point, Direction>>> shortestPathParentMap =
-                new HashMap<>();
+        if (Utils.VERBOSE) {
+            System.out.println("Total unique locations: %s".formatted(uniqueCellsOnBestPaths.cardinality()));
+        }
+        return uniqueCellsOnBestPaths.cardinality();
+    }
 
-        TerminalScreen screen = new TerminalScreen();
+    /**
+     * Graph of the states of the reindeer, each cell of the maze has one state for each
+     * of the directions the reindeer can face there. On top of that there is a single
+     * additional end state that all states at the end tile lead into for free, which
+     * means that the direction in which the end is reached doesn't matter.
+     */
+    private static final class ReindeerGraph implements Dijkstra.Graph {
+        private static final int DIRECTION_COUNT = Grid.DIRECTIONS.length;
+
+        private final EnumGrid<MazeCell> maze;
+        private final int endState;
+
+        ReindeerGraph(EnumGrid<MazeCell> maze) {
+            this.maze = maze;
+            this.endState = maze.size() * DIRECTION_COUNT;
+        }
 
-        if (USE_LANTERNA) {
-            visualiseVisited(screen, unvisitedSet.stream().map(Pair::getLeft).toList(), maze);
+        int state(int cell, Direction direction) {
+            return cell * DIRECTION_COUNT + direction.ordinal();
         }
 
-        // This is taken by solving part 1
-        int bestPathLength = 143580;
-        while (!unvisitedSet.isEmpty()) {
+        int cell(int state) {
+            return state / DIRECTION_COUNT;
+        }
 
-            unvisitedSet.sort(Comparator.comparingInt(costMap::get));
-            Pair<Point, Direction> curr = unvisitedSet.removeFirst();
+        int endState() {
+            return endState;
+        }
 
-            if (USE_LANTERNA) {
-                try {
-                    Thread.sleep(SIMULATION_TICK_MILLIS);
-                    visualiseVisited(screen,
-                                     unvisitedSet.stream().map(Pair::getLeft).toList(),
-                                     maze);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+        boolean isQueued(Dijkstra dijkstra, int cell) {
+            for (int d = 0; d < DIRECTION_COUNT; d++) {
+                if (dijkstra.isQueued(cell * DIRECTION_COUNT + d)) {
+                    return true;
                 }
             }
-            int currCost = costMap.get(curr);
-            System.out.println("Processing point: %s, current cost: %s".formatted(curr, currCost));
-            if (currCost == Integer.MAX_VALUE) {
-                System.out.println("No more nodes reachable.");
-                break;
+            return false;
+        }
+
+        @Override
+        public int nodeCount() {
+            return endState + 1;
+        }
+
+        @Override
+        public void forEachEdge(int state, Dijkstra.EdgeConsumer consumer) {
+            if (state == endState) {
+                return;
+            }
+            int cell = cell(state);
+            Direction facing = Grid.DIRECTIONS[state % DIRECTION_COUNT];
+            if (maze.get(cell).equals(MazeCell.END)) {
+                consumer.accept(endState, 0);
             }
 
-            if (currCost > bestPathLength) {
-                System.out.println("The cost of the current node is already higher than the best one. Skipping it.");
-                break;
+            int ahead = maze.neighbour(cell, facing);
+            if (ahead >= 0 && !maze.get(ahead).equals(MazeCell.WALL)) {
+                consumer.accept(state(ahead, facing), STEP_COST);
             }
-            Direction currDirection = curr.getRight();
-            List<Pair<Point, Direction>> neighbours = getAvailableNeighbourLocations(curr.getLeft(),
-                                                                                     maze,
-                                                                                     HashSet.newHashSet(
-                                                                                             0));
-            System.out.println("Accessible neighbours: ");
-            System.out.println(Utils.toStringLineByLine(neighbours));
-
-            // update costs based on direction relationship
-            for (final var nb : neighbours) {
-                int nbCost = costMap.get(nb);
-                int stepCost = currDirection == nb.getRight() ? 1 : 1001;
-                // If the direction changes we need to update the cost map as we are turning in
-                // place
-                int costThroughCurrent = currCost + stepCost;
-                System.out.println("Cost through current node: %s".formatted(costThroughCurrent));
-                System.out.println("Cost of neighbour: %s".formatted(nbCost));
-                // The idea is that all best paths will have the same cost of the
-                // current node, so if the current cost of nb and the new cost
-                // is the same, it means that we have two paths that are equally good
-                if (costThroughCurrent == nbCost && shortestPathParentMap.containsKey(nb)) {
-                    shortestPathParentMap.get(nb).add(curr);
-                } else if (costThroughCurrent < nbCost) {
-                    shortestPathParentMap.put(nb, new ArrayList<>(List.of(curr)));
+            // Turning clockwise or counterclockwise, turning around takes two turns.
+            for (Direction direction : Grid.DIRECTIONS) {
+                if (direction.isHorizontal() != facing.isHorizontal()) {
+                    consumer.accept(state(cell, direction), TURN_COST);
                 }
-                costMap.put(nb, Math.min(nbCost, costThroughCurrent));
-                System.out.println(costMap.get(nb));
-                directionMap.put(nb.getLeft(), nb.getRight());
             }
         }
-        // After this is done, we have traversed all possible paths and so the end should have an
-        // entry
-        // in the parent map.
-        Point end = findEndingPoint(maze).get();
-        List<Integer> endCosts = costMap.entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().getLeft().equals(end))
-                .map(entry -> entry.getValue())
-                .toList();
-        System.out.println("Cost at the end: %s".formatted(endCosts.stream()
-                                                                   .min(Integer::compareTo)));
-
-        System.out.println(Utils.toStringLineByLine(shortestPathParentMap.entrySet()
-                                                            .stream()
-                                                            .toList()));
-        if (false) {
-            return;
-        }
-        // Now we trace back all paths that end at the end
-        List<Pair<Point, Direction>> pointsToTraceBack = shortestPathParentMap.get(Pair.of(end,
-                                                                                           Direction.UP));
-        HashSet<Point> uniquePointsOnBestPaths = new HashSet<>();
-        while (!pointsToTraceBack.isEmpty()) {
-            final var curr = pointsToTraceBack.removeFirst();
-            uniquePointsOnBestPaths.add(curr.getLeft());
-            System.out.println("Tracing point: %s".formatted(curr));
-            final var parents = shortestPathParentMap.getOrDefault(curr, List.of());
-            System.out.println("Parents: %s".formatted(parents));
-            pointsToTraceBack.addAll(parents.stream().filter(parent -> !uniquePointsOnBestPaths.contains(parent.getLeft())).toList());
-        }
-
-        visualiseVisited(screen, uniquePointsOnBestPaths.stream().toList(), maze);
-
-        // We need to add 1 to the unique points because the start is not included for some reason.
-        System.out.println("Total unique locations: %s".formatted(uniquePointsOnBestPaths.size() + 1));
     }
 
-    private void visualiseVisited(
+    private void visualiseCells(
             TerminalScreen screen,
-            List<Point> unvisitedSet,
-            List<List<MazeCell>> maze
+            EnumGrid<MazeCell> maze,
+            IntPredicate highlighted
     ) {
-        List<List<MazeCell>> mazeCopy = Utils.getMutableGridCopy(maze);
-        for (Point p : unvisitedSet) {
-            p.indexGridAndSet(mazeCopy, MazeCell.UNVISITED);
+        EnumGrid<MazeCell> mazeCopy = maze.copy();
+        for (int cell = 0; cell < maze.size(); cell++) {
+            if (highlighted.test(cell)) {
+                mazeCopy.set(cell, MazeCell.UNVISITED);
+            }
         }
         try {
             screen.clearScreen();
-            for (List<MazeCell> row : mazeCopy) {
-                String repr = row.stream().map(MazeCell::toString).collect(Collectors.joining(""));
-                screen.printLine(repr);
+            for (String row : mazeCopy.toString().split("\n")) {
+                screen.printLine(row);
             }
             screen.flushChanges();
         } catch (IOException e) {
@@ -257,42 +212,17 @@ public class Day16 implements Solution {
         }
     }
 
-    private List<Pair<Point, Direction>> getAvailableNeighbourLocations(
-            Point currLoc,
-            List<List<MazeCell>> maze,
-            HashSet<Point> alreadyVisited
-    ) {
-        return Arrays.stream(Direction.values())
-                .map(dir -> Pair.of(currLoc.moveInDirection(dir), dir))
-                .filter(p -> !p.getLeft().indexGrid(maze).equals(MazeCell.WALL))
-                .filter(p -> !p.getLeft().indexGrid(maze).equals(MazeCell.START))
-                .filter(p -> !alreadyVisited.contains(p.getLeft()))
-                .toList();
-    }
-
-    private Optional<Point> findStartingPoint(List<List<MazeCell>> maze) {
-        return findPointOfType(maze, MazeCell.START);
-    }
-
-    private Optional<Point> findEndingPoint(List<List<MazeCell>> maze) {
-        return findPointOfType(maze, MazeCell.END);
-    }
-
-    private Optional<Point> findPointOfType(List<List<MazeCell>> maze, MazeCell type) {
-        for (int y = 0; y < maze.size(); y++) {
-            for (int x = 0; x < maze.get(0).size(); x++) {
-                if (maze.get(y).get(x).equals(type)) {
-                    return Optional.of(new Point(x, y));
-                }
-            }
+    private Optional<Point> findStartingPoint(EnumGrid<MazeCell> maze) {
+        int index = maze.indexOf(MazeCell.START);
+        if (index < 0) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.of(maze.pointAt(index));
     }
 
 
-    private List<List<MazeCell>> readMazeMap(Stream<String> input) {
-        return input.map(line -> line.chars().mapToObj(c -> MazeCell.fromChar((char) c)).toList())
-                .toList();
+    private EnumGrid<MazeCell> readMazeMap(MappedInput input) {
+        return EnumGrid.parse(input, MazeCell.class, MazeCell::fromChar);
     }
 
     enum MazeCell {
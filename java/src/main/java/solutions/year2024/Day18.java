@@ -1,17 +1,19 @@
 package solutions.year2024;
 
 import lombok.SneakyThrows;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
+import solutions.common.Dijkstra;
+import solutions.common.EnumGrid;
 import solutions.common.Point;
 import solutions.common.TerminalScreen;
+import solutions.common.UnionFind;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-public class Day18 implements Solution {
+public class Day18 implements Solution<Integer, String> {
 
     private record PuzzleConfiguration(int gridSize, int fallingBytesToSimulate) {
     }
@@ -40,19 +42,23 @@ public class Day18 implements Solution {
     }
 
     @Override
-    public void firstPart(String inputFile) {
-        List<Point> fallingBytes = parseFallingStones(Utils.readInputAsStream(inputFile));
+    public Integer solveFirstPart(String inputFile) {
+        List<Point> fallingBytes = parseFallingStones(Utils.mapInput(inputFile));
         final var config = resolvePuzzleConfiguration(inputFile);
 
-        System.out.println("Using puzzle config: %s".formatted(config));
-        if (FANCY_VISUALIZATION) {
+        if (Utils.VERBOSE) {
+            System.out.println("Using puzzle config: %s".formatted(config));
+        }
+        if (FANCY_VISUALIZATION && Utils.VERBOSE) {
             System.out.println("Using Lanterna-based visualization. Tick milliseconds: %d".formatted(
                     SIMULATION_TICK_MILLIS));
         }
-        List<List<MemoryCell>> grid = initializeGrid(config.gridSize());
+        EnumGrid<MemoryType> grid = initializeGrid(config.gridSize());
 
-        System.out.println("Grid after initialization: ");
-        System.out.println(printGrid(grid));
+        if (Utils.VERBOSE) {
+            System.out.println("Grid after initialization: ");
+            System.out.println(printGrid(grid));
+        }
 
         TerminalScreen screen = null;
         if (FANCY_VISUALIZATION) {
@@ -61,188 +67,112 @@ public class Day18 implements Solution {
 
         simulateFallingBytes(grid, fallingBytes.subList(0, config.fallingBytesToSimulate()));
 
-        System.out.println("Grid after simulating falling bytes: ");
-        System.out.println(printGrid(grid));
+        if (Utils.VERBOSE) {
+            System.out.println("Grid after simulating falling bytes: ");
+            System.out.println(printGrid(grid));
+        }
 
-        Point start = new Point(0, 0);
-        Point end = new Point(config.gridSize() - 1, config.gridSize() - 1);
+        int start = grid.index(0, 0);
+        int end = grid.index(config.gridSize() - 1, config.gridSize() - 1);
 
-        Map<Point, Point> parentMap = findShortestPaths(screen, start, end, grid);
-        traceBackPathToExit(screen, end, grid, parentMap, start);
+        Dijkstra dijkstra = createPathFinder(screen, grid);
+        dijkstra.run(start, end);
+        if (dijkstra.cost(end) == Dijkstra.UNREACHABLE) {
+            if (Utils.VERBOSE) {
+                System.out.println("The exit cannot be reached.");
+            }
+            return null;
+        }
+        if (Utils.VERBOSE) {
+            System.out.println("Steps required to reach the exit: %s".formatted(dijkstra.cost(end)));
+        }
+        return traceBackPathToExit(screen, end, grid, dijkstra, start);
     }
 
-    private void traceBackPathToExit(
+    /**
+     * @return the number of steps on the shortest path from start to end
+     */
+    private int traceBackPathToExit(
             TerminalScreen screen,
-            Point end,
-            List<List<MemoryCell>> grid,
-            Map<Point, Point> parentMap,
-            Point start
+            int end,
+            EnumGrid<MemoryType> grid,
+            Dijkstra dijkstra,
+            int start
     ) {
-        Point current = end;
+        int current = end;
 
-        List<Point> pathFromExit = new ArrayList<>();
+        int steps = 0;
         do {
-            current.indexGridAndSet(grid,
-                                    new MemoryCell(MemoryType.PART_OF_SHORTEST_PATH, current));
-            current = parentMap.get(current);
-            pathFromExit.add(current);
+            grid.set(current, MemoryType.PART_OF_SHORTEST_PATH);
+            current = dijkstra.parent(current);
+            steps++;
 
             if (FANCY_VISUALIZATION) {
                 visualizeTraceBack(screen, grid);
             }
-        } while (!current.equals(start));
+        } while (current >= 0 && current != start);
 
-        System.out.println("Shortest path found: ");
-        System.out.println(printGrid(grid));
+        if (Utils.VERBOSE) {
+            System.out.println("Shortest path found: ");
+            System.out.println(printGrid(grid));
+        }
+        return steps;
     }
 
+    /**
+     * Memory cells are connected to their healthy neighbours and each step costs the same.
+     * The graph reads the grid directly, so bytes that fall after it has been created are
+     * taken into account in the subsequent searches.
+     */
+    private record MemoryGraph(EnumGrid<MemoryType> grid) implements Dijkstra.Graph {
+        @Override
+        public int nodeCount() {
+            return grid.size();
+        }
 
-    private static Map<Point, Point> findShortestPaths(
-            TerminalScreen screen,
-            Point start,
-            Point end,
-            List<List<MemoryCell>> grid
-    ) {
-        Map<Point, Integer> costMap = new HashMap<>();
-        List<Point> pointsToVisit = new ArrayList<>();
-
-        // This set is not needed by the algorithm, it is
-        // only used for visualisation
-        HashSet<Point> visited = new HashSet<>();
-
-        costMap.put(start, 0);
-        pointsToVisit.add(start);
-
-
-        grid.stream().forEach(row -> row.forEach(cell -> {
-            if (!cell.location.equals(start) && cell.type.equals(MemoryType.HEALTHY)) {
-                costMap.put(cell.location, Integer.MAX_VALUE);
-                pointsToVisit.add(cell.location);
-            }
-        }));
-
-        Map<Point, Point> parentMap = new HashMap<>();
-
-        while (!pointsToVisit.isEmpty()) {
-            pointsToVisit.sort(Comparator.comparingInt(costMap::get));
-            Point curr = pointsToVisit.removeFirst();
-            visited.add(curr);
-            if (curr.equals(end)) {
-                System.out.println("Exit found");
-                System.out.println("Steps required to reach the exit: %s".formatted(costMap.get(curr)));
-                break;
-            }
-
-            for (Point nb : curr.getNeighbourLocationsInsideGrid(grid)) {
-                if (pointsToVisit.contains(nb)) {
-                    int currentNeighbourCost = costMap.get(nb);
-                    int costThroughCurr = costMap.get(curr) + 1;
-
-                    if (costThroughCurr <= currentNeighbourCost) {
-                        costMap.put(nb, costThroughCurr);
-                        parentMap.put(nb, curr);
-                    }
+        @Override
+        public void forEachEdge(int cell, Dijkstra.EdgeConsumer consumer) {
+            for (int k = 0; k < Point.Connectivity.FOUR.size(); k++) {
+                int nb = grid.neighbour(cell, Point.Connectivity.FOUR, k);
+                if (nb >= 0 && grid.get(nb).equals(MemoryType.HEALTHY)) {
+                    consumer.accept(nb, 1);
                 }
             }
-
-            if (FANCY_VISUALIZATION) {
-                visualizeAlgorithmStep(screen, grid, visited, costMap);
-            }
         }
-        return parentMap;
     }
 
-    private static boolean isExitReachable(
-            TerminalScreen screen,
-            Point start,
-            Point end,
-            List<List<MemoryCell>> grid
-    ) {
-        Map<Point, Integer> costMap = new HashMap<>();
-        List<Point> pointsToVisit = new ArrayList<>();
-
-        // This set is not needed by the algorithm, it is
-        // only used for visualisation
-        HashSet<Point> visited = new HashSet<>();
-
-        costMap.put(start, 0);
-        pointsToVisit.add(start);
-
-
-        grid.stream().forEach(row -> row.forEach(cell -> {
-            if (!cell.location.equals(start) && cell.type.equals(MemoryType.HEALTHY)) {
-                costMap.put(cell.location, Integer.MAX_VALUE);
-                pointsToVisit.add(cell.location);
-            }
-        }));
-
-        Map<Point, Point> parentMap = new HashMap<>();
-
-        while (!pointsToVisit.isEmpty()) {
-            pointsToVisit.sort(Comparator.comparingInt(costMap::get));
-            Point curr = pointsToVisit.removeFirst();
-            visited.add(curr);
-            if (curr.equals(end)) {
-                System.out.println("Exit found");
-                System.out.println("Steps required to reach the exit: %d".formatted(costMap.get(curr)));
-                return costMap.get(curr) != Integer.MAX_VALUE;
-            }
-
-            for (Point nb : curr.getNeighbourLocationsInsideGrid(grid)) {
-                if (pointsToVisit.contains(nb)) {
-                    int currentNeighbourCost = costMap.get(nb);
-                    int costThroughCurr = costMap.get(curr) + 1;
-
-                    if (costThroughCurr <= currentNeighbourCost && costMap.get(curr) != Integer.MAX_VALUE) {
-                        costMap.put(nb, costThroughCurr);
-                        parentMap.put(nb, curr);
-                    }
-                }
-            }
-
-            if (FANCY_VISUALIZATION) {
-                visualizeAlgorithmStep(screen, grid, visited, costMap);
-            }
+    private static Dijkstra createPathFinder(TerminalScreen screen, EnumGrid<MemoryType> grid) {
+        Dijkstra dijkstra = new Dijkstra(new MemoryGraph(grid), false);
+        if (FANCY_VISUALIZATION) {
+            dijkstra.setSettledListener(cell -> visualizeAlgorithmStep(screen, grid, dijkstra));
         }
-        return false;
+        return dijkstra;
     }
 
-
     /**
      * Responsible for drawing the algorithm as it progresses using lanterna
      */
     @SneakyThrows
     private static void visualizeAlgorithmStep(
             TerminalScreen screen,
-            List<List<MemoryCell>> grid,
-            HashSet<Point> visited,
-            Map<Point, Integer> costMap
+            EnumGrid<MemoryType> grid,
+            Dijkstra dijkstra
     ) {
-        List<List<MemoryCell>> gridCopy = Utils.getMutableGridCopy(grid);
-
-        Set<Point> candidatesToVisit = costMap.entrySet()
-                .stream()
-                .filter(entry -> entry.getValue() < Integer.MAX_VALUE)
-                .filter(entry -> !visited.contains(entry.getKey()))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-
+        EnumGrid<MemoryType> gridCopy = grid.copy();
 
-        visited.forEach(p -> p.indexGridAndSet(gridCopy, new MemoryCell(MemoryType.VISITED, p)));
-        candidatesToVisit.forEach(p -> p.indexGridAndSet(gridCopy,
-                                                         new MemoryCell(MemoryType.CANDIDATE_TO_VISIT,
-                                                                        p)));
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (dijkstra.isSettled(cell)) {
+                gridCopy.set(cell, MemoryType.VISITED);
+            } else if (dijkstra.isQueued(cell)) {
+                gridCopy.set(cell, MemoryType.CANDIDATE_TO_VISIT);
+            }
+        }
 
         try {
             screen.clearScreen();
             screen.resetCursorPosition();
-            for (final var row : gridCopy) {
-                String line = row.stream()
-                        .map(MemoryCell::type)
-                        .map(MemoryType::toString)
-                        .collect(Collectors.joining(""));
+            for (String line : printGrid(gridCopy).split("\n")) {
                 screen.printLine(line);
-
             }
             screen.flushChanges();
             Thread.sleep(SIMULATION_TICK_MILLIS);
@@ -253,19 +183,14 @@ public class Day18 implements Solution {
 
     private void visualizeTraceBack(
             TerminalScreen screen,
-            List<List<MemoryCell>> grid
+            EnumGrid<MemoryType> grid
     ) {
 
         try {
             screen.clearScreen();
             screen.resetCursorPosition();
-            for (final var row : grid) {
-                String line = row.stream()
-                        .map(MemoryCell::type)
-                        .map(MemoryType::toString)
-                        .collect(Collectors.joining(""));
+            for (String line : printGrid(grid).split("\n")) {
                 screen.printLine(line);
-
             }
             screen.flushChanges();
             Thread.sleep(SIMULATION_TICK_MILLIS);
@@ -276,78 +201,129 @@ public class Day18 implements Solution {
         }
     }
 
-    private void simulateFallingBytes(List<List<MemoryCell>> grid, List<Point> fallingBytes) {
+    private void simulateFallingBytes(EnumGrid<MemoryType> grid, List<Point> fallingBytes) {
         for (Point p : fallingBytes) {
-            p.indexGridAndSet(grid, new MemoryCell(MemoryType.CORRUPTED, p));
+            grid.set(p, MemoryType.CORRUPTED);
         }
     }
 
-    private static String printGrid(List<List<MemoryCell>> grid) {
-        return grid.stream()
-                .map(row -> row.stream()
-                        .map(memoryCell -> memoryCell.type.toString())
-                        .collect(Collectors.joining("")))
-                .collect(Collectors.joining("\n"));
+    private static String printGrid(EnumGrid<MemoryType> grid) {
+        return grid.toString();
     }
 
-    private List<List<MemoryCell>> initializeGrid(int gridSize) {
-        List<List<MemoryCell>> output = new ArrayList<>();
-        for (int y = 0; y < gridSize; y++) {
-            List<MemoryCell> row = new ArrayList<>();
-            for (int x = 0; x < gridSize; x++) {
-                row.add(new MemoryCell(MemoryType.HEALTHY, new Point(x, y)));
-            }
-            output.add(row);
-        }
-        return output;
+    private EnumGrid<MemoryType> initializeGrid(int gridSize) {
+        // The ordinal of HEALTHY is zero, so a freshly allocated grid is fully healthy.
+        return new EnumGrid<>(gridSize, gridSize, MemoryType.class);
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        List<Point> fallingBytes = parseFallingStones(Utils.readInputAsStream(inputFile));
+    public String solveSecondPart(String inputFile) {
+        List<Point> fallingBytes = parseFallingStones(Utils.mapInput(inputFile));
         final var config = resolvePuzzleConfiguration(inputFile);
 
-        System.out.println("Using puzzle config: %s".formatted(config));
-        if (FANCY_VISUALIZATION) {
-            System.out.println("Using Lanterna-based visualization. Tick milliseconds: %d".formatted(
-                    SIMULATION_TICK_MILLIS));
+        if (Utils.VERBOSE) {
+            System.out.println("Using puzzle config: %s".formatted(config));
         }
-        List<List<MemoryCell>> grid = initializeGrid(config.gridSize());
-
-        System.out.println("Grid after initialization: ");
-        System.out.println(printGrid(grid));
-
-        TerminalScreen screen = null;
-        if (FANCY_VISUALIZATION) {
-            screen = new TerminalScreen(6);
+        EnumGrid<MemoryType> grid = initializeGrid(config.gridSize());
+
+        int blockingByteIndex = findFirstBlockingByte(grid,
+                                                      fallingBytes,
+                                                      config.fallingBytesToSimulate());
+        if (blockingByteIndex < 0) {
+            if (Utils.VERBOSE) {
+                System.out.println("None of the falling bytes blocks the exit.");
+            }
+            return null;
         }
+        if (Utils.VERBOSE) {
+            System.out.println("Found a byte that blocks the exit: (%d/%d)".formatted(
+                    blockingByteIndex,
+                    fallingBytes.size()));
+        }
+        Point blockingByte = fallingBytes.get(blockingByteIndex);
+        return "%d,%d".formatted(blockingByte.x(), blockingByte.y());
+    }
 
-        simulateFallingBytes(grid, fallingBytes.subList(0, config.fallingBytesToSimulate()));
-        System.out.println("Grid after simulating initial falling bytes: ");
-        System.out.println(printGrid(grid));
-
-        int nextFallingByteIndex = config.fallingBytesToSimulate();
-        boolean blockingByteFound = false;
-        while (!blockingByteFound) {
-            System.out.println("Simulating falling byte: %s (%d/%d)".formatted(fallingBytes.get(nextFallingByteIndex), nextFallingByteIndex, fallingBytes.size()));
-            simulateFallingBytes(grid, List.of(fallingBytes.get(nextFallingByteIndex)));
-            Point start = new Point(0, 0);
-            Point end = new Point(config.gridSize() - 1, config.gridSize() - 1);
-            blockingByteFound |= !isExitReachable(screen, start, end, grid);
-            nextFallingByteIndex++;
+    /**
+     * Instead of searching for a path after each falling byte, we let all of the bytes
+     * fall and then remove them again in the reverse order. Connected healthy cells are
+     * tracked using union-find, so each removal only merges the freed cell with its
+     * neighbours. The first byte whose removal connects the start and the end is the
+     * one that blocks the exit when the bytes fall in the original order.
+     *
+     * @param alreadyFallen number of bytes at the beginning of the list that are known
+     *                      not to block the exit.
+     * @return Index of the first byte that blocks the exit or -1 if the exit stays
+     * reachable after all bytes have fallen.
+     */
+    private int findFirstBlockingByte(
+            EnumGrid<MemoryType> grid,
+            List<Point> fallingBytes,
+            int alreadyFallen
+    ) {
+        int start = grid.index(0, 0);
+        int end = grid.index(grid.width() - 1, grid.height() - 1);
+
+        // The same location can be hit multiple times, it only becomes healthy again
+        // once the earliest byte that fell onto it has been removed.
+        int[] firstFallIndex = new int[grid.size()];
+        Arrays.fill(firstFallIndex, -1);
+        for (int i = fallingBytes.size() - 1; i >= 0; i--) {
+            int cell = grid.index(fallingBytes.get(i));
+            firstFallIndex[cell] = i;
+            grid.set(cell, MemoryType.CORRUPTED);
         }
-        System.out.println("Found a byte that blocks the exit.");
 
+        UnionFind healthyRegions = new UnionFind(grid.size());
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (grid.get(cell).equals(MemoryType.HEALTHY)) {
+                joinHealthyNeighbours(grid, healthyRegions, cell);
+            }
+        }
+        if (healthyRegions.connected(start, end)) {
+            return -1;
+        }
 
+        for (int i = fallingBytes.size() - 1; i > alreadyFallen; i--) {
+            int cell = grid.index(fallingBytes.get(i));
+            if (firstFallIndex[cell] != i) {
+                continue;
+            }
+            grid.set(cell, MemoryType.HEALTHY);
+            joinHealthyNeighbours(grid, healthyRegions, cell);
+            if (healthyRegions.connected(start, end)) {
+                return i;
+            }
+        }
+        return alreadyFallen;
     }
 
-    private List<Point> parseFallingStones(Stream<String> input) {
-        return input.map(line -> Arrays.stream(line.split(",")).map(Integer::parseInt).toList())
-                .map(tup -> new Point(tup.get(0), tup.get(1)))
-                .toList();
+    private static void joinHealthyNeighbours(
+            EnumGrid<MemoryType> grid,
+            UnionFind healthyRegions,
+            int cell
+    ) {
+        for (int k = 0; k < Point.Connectivity.FOUR.size(); k++) {
+            int nb = grid.neighbour(cell, Point.Connectivity.FOUR, k);
+            if (nb >= 0 && grid.get(nb).equals(MemoryType.HEALTHY)) {
+                healthyRegions.union(cell, nb);
+            }
+        }
     }
 
-    private record MemoryCell(MemoryType type, Point location) {
+    private List<Point> parseFallingStones(MappedInput input) {
+        List<Point> fallingBytes = new ArrayList<>(input.lineCount());
+        MappedInput.LineCursor line = input.lines();
+        while (line.next()) {
+            MappedInput.FieldCursor field = line.fields(',');
+            boolean hasX = field.next();
+            assert hasX : "Each falling byte needs to be given as 'x,y'.";
+            int x = field.parseInt();
+            boolean hasY = field.next();
+            assert hasY : "Each falling byte needs to be given as 'x,y'.";
+            fallingBytes.add(new Point(x, field.parseInt()));
+        }
+        return fallingBytes;
     }
 
     private enum MemoryType {
@@ -9,58 +9,74 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day19 implements Solution {
+public class Day19 implements Solution<Integer, Long> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
         final var patternsAndDesigns = parseTowelPatternsAndRequiredDesigns(Utils.readInputAsStream(inputFile));
         List<Pattern> patterns = patternsAndDesigns.getLeft();
         List<Pattern> designs = patternsAndDesigns.getRight();
-        System.out.println("Patterns: ");
-        System.out.println(patterns);
-        System.out.println("Designs: ");
-        System.out.println(designs);
+        if (Utils.VERBOSE) {
+            System.out.println("Patterns: ");
+            System.out.println(patterns);
+            System.out.println("Designs: ");
+            System.out.println(designs);
+        }
 
         int possibleDesigns = 0;
 
         CACHE = new HashMap<>();
         for (int i = 0; i < designs.size(); i++) {
             Pattern design = designs.get(i);
-            System.out.println("Checking if design %s is possible. Progress: (%s/%s)".formatted(design, i, designs.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Checking if design %s is possible. Progress: (%s/%s)".formatted(design, i, designs.size()));
+            }
             if (isDesignPossible(design, patterns)) {
-                System.out.println("Design can be assembled");
+                if (Utils.VERBOSE) {
+                    System.out.println("Design can be assembled");
+                }
                 possibleDesigns += 1;
             }
         }
 
-        System.out.println("Total possible designs: %s".formatted(possibleDesigns));
-
+        if (Utils.VERBOSE) {
+            System.out.println("Total possible designs: %s".formatted(possibleDesigns));
+        }
+        return possibleDesigns;
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public Long solveSecondPart(String inputFile) {
         final var patternsAndDesigns = parseTowelPatternsAndRequiredDesigns(Utils.readInputAsStream(inputFile));
         List<Pattern> patterns = patternsAndDesigns.getLeft();
         List<Pattern> designs = patternsAndDesigns.getRight();
-        System.out.println("Patterns: ");
-        System.out.println(patterns);
-        System.out.println("Designs: ");
-        System.out.println(designs);
+        if (Utils.VERBOSE) {
+            System.out.println("Patterns: ");
+            System.out.println(patterns);
+            System.out.println("Designs: ");
+            System.out.println(designs);
+        }
 
         long totalSolutions = 0;
 
         SOLUTION_COUNT_CACHE = new HashMap<>();
         for (int i = 0; i < designs.size(); i++) {
             Pattern design = designs.get(i);
-            System.out.println("Checking if design %s is possible. Progress: (%s/%s)".formatted(design, i, designs.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Checking if design %s is possible. Progress: (%s/%s)".formatted(design, i, designs.size()));
+            }
             long solutionCount = countDesignsPossible(design, patterns);
             if (solutionCount > 0) {
-                System.out.println("Design can be assembled");
+                if (Utils.VERBOSE) {
+                    System.out.println("Design can be assembled");
+                }
                 totalSolutions += solutionCount;
             }
         }
 
-        System.out.println("Total possible ways to assemble designs: %s".formatted(totalSolutions));
-
+        if (Utils.VERBOSE) {
+            System.out.println("Total possible ways to assemble designs: %s".formatted(totalSolutions));
+        }
+        return totalSolutions;
     }
 
     private boolean isDesignPossible(Pattern design, List<Pattern> availablePatterns) {
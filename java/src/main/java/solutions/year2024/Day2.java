@@ -1,87 +1,133 @@
 package solutions.year2024;
 
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
-import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Stream;
 
-public class Day2 implements Solution {
+public class Day2 implements Solution<Long, Long> {
+    private static final int MIN_DIFFERENCE = 1;
+    private static final int MAX_DIFFERENCE = 3;
+
     @Override
-    public void firstPart(String inputFile) {
-        List<Report> reports = parseReports(Utils.readInputAsStream(inputFile));
-        long result = reports.stream()
-                .filter(r -> (r.isAllIncreasing() || r.isAllDecreasing()) && r.satisfiesAdjacentDifferenceBounds())
+    public Long solveFirstPart(String inputFile) {
+        List<Report> reports = parseReports(Utils.mapInput(inputFile));
+        long result = reports.parallelStream()
+                .filter(Report::isSafe)
                 .count();
-        System.out.printf("There are %d safe reports.%n", result);
+        if (Utils.VERBOSE) {
+            System.out.printf("There are %d safe reports.%n", result);
+        }
+        return result;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        List<Report> reports = parseReports(Utils.readInputAsStream(inputFile));
-        List<List<Report>> allPossibilities = generateAllPossibilitiesWithProblemDampener(reports);
-        long result = allPossibilities.stream()
-                .filter(rs -> rs.stream()
-                        .anyMatch(
-                                r -> (r.isAllIncreasing() || r.isAllDecreasing()) && r.satisfiesAdjacentDifferenceBounds()))
+    public Long solveSecondPart(String inputFile) {
+        List<Report> reports = parseReports(Utils.mapInput(inputFile));
+        long result = reports.parallelStream()
+                .filter(Report::isSafeWithProblemDampener)
                 .count();
-        System.out.printf("There are %d safe reports.%n", result);
-    }
-
-    @Nonnull
-    private List<List<Report>> generateAllPossibilitiesWithProblemDampener(List<Report> reports) {
-        return reports.stream().map(Day2::generateAllPossibleSubReports).toList();
+        if (Utils.VERBOSE) {
+            System.out.printf("There are %d safe reports.%n", result);
+        }
+        return result;
     }
 
-    private static List<Report> generateAllPossibleSubReports(Report report) {
-        List<Report> allPossibilities = new ArrayList<>();
-        for (int i = 0; i < report.levels.size(); i++) {
-            var copy = new ArrayList<>(report.levels);
-            copy.remove(i);
-            allPossibilities.add(new Report(copy));
+    private List<Report> parseReports(MappedInput input) {
+        List<Report> reports = new ArrayList<>(input.lineCount());
+        int[] levels = new int[16];
+        MappedInput.LineCursor line = input.lines();
+        while (line.next()) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int levelCount = 0;
+            MappedInput.FieldCursor field = line.fields(' ');
+            while (field.next()) {
+                if (levelCount == levels.length) {
+                    levels = Arrays.copyOf(levels, 2 * levelCount);
+                }
+                levels[levelCount++] = field.parseInt();
+            }
+            reports.add(new Report(Arrays.copyOf(levels, levelCount)));
         }
-        return allPossibilities;
+        return reports;
     }
 
-    private List<Report> parseReports(Stream<String> input) {
-        return input.map(line -> new Report(
-                        Arrays.stream(line.split(" ")).map(x -> new Level(Integer.parseInt(x))).toList()))
-                .toList();
-    }
+    record Report(int[] levels) {
+        public boolean isSafe() {
+            return isSafe(1) || isSafe(-1);
+        }
 
-    record Report(List<Level> levels) {
-        public boolean isAllIncreasing() {
-            for (int i = 0; i < levels.size() - 1; i++) {
-                if (levels.get(i + 1).value <= levels.get(i).value) {
+        private boolean isSafe(int direction) {
+            for (int i = 0; i < levels.length - 1; i++) {
+                if (!isSafeStep(levels[i], levels[i + 1], direction)) {
                     return false;
                 }
             }
             return true;
         }
 
-        public boolean isAllDecreasing() {
-            for (int i = 0; i < levels.size() - 1; i++) {
-                if (levels.get(i + 1).value >= levels.get(i).value) {
-                    return false;
-                }
+        /**
+         * Checks whether the report is safe after removing at most one of its levels.
+         * Instead of trying each of the levels, both directions are followed in a single
+         * scan, each of them by a {@link DampenedScan}.
+         */
+        public boolean isSafeWithProblemDampener() {
+            DampenedScan increasing = new DampenedScan(1);
+            DampenedScan decreasing = new DampenedScan(-1);
+            for (int i = 1; i < levels.length; i++) {
+                increasing.accept(levels, i);
+                decreasing.accept(levels, i);
             }
-            return true;
+            return increasing.isSafe() || decreasing.isSafe();
         }
+    }
 
-        public boolean satisfiesAdjacentDifferenceBounds() {
-            for (int i = 0; i < levels.size() - 1; i++) {
-                int diff = Math.abs(levels.get(i + 1).value - levels.get(i).value);
-                if (diff < 1 || 3 < diff) {
-                    return false;
-                }
-            }
-            return true;
+    /**
+     * Follows the prefixes of a report in one direction, keeping track of which ways of
+     * removing at most one level keep the prefix safe. Only three states are needed,
+     * depending on whether and where a level was removed, because the next step only
+     * depends on the last level that has been kept.
+     */
+    private static final class DampenedScan {
+        private final int direction;
+        // Nothing has been removed, the last kept level is the current one.
+        private boolean safe = true;
+        // A level before the current one has been removed, the current one is kept.
+        private boolean safeAfterEarlierRemoval = false;
+        // The current level has been removed, the last kept level is the previous one.
+        private boolean safeWithoutCurrent = true;
+
+        DampenedScan(int direction) {
+            this.direction = direction;
+        }
+
+        /**
+         * Moves the scan from level i - 1 onto level i.
+         */
+        void accept(int[] levels, int i) {
+            boolean step = isSafeStep(levels[i - 1], levels[i], direction);
+            // Stepping over the previous level, which has been removed. When it is the
+            // first one there is nothing to compare with.
+            boolean stepOverPrevious = i < 2 || isSafeStep(levels[i - 2], levels[i], direction);
+            boolean afterEarlierRemoval = (safeAfterEarlierRemoval && step)
+                                          || (safeWithoutCurrent && stepOverPrevious);
+            safeWithoutCurrent = safe;
+            safe = safe && step;
+            safeAfterEarlierRemoval = afterEarlierRemoval;
+        }
+
+        boolean isSafe() {
+            return safe || safeAfterEarlierRemoval || safeWithoutCurrent;
         }
     }
 
-    record Level(int value) {
+    private static boolean isSafeStep(int from, int to, int direction) {
+        int difference = (to - from) * direction;
+        return MIN_DIFFERENCE <= difference && difference <= MAX_DIFFERENCE;
     }
 }
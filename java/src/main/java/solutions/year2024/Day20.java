@@ -1,397 +1,256 @@
 package solutions.year2024;
 
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
+import solutions.common.EnumGrid;
 import solutions.common.Point;
 
-import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Arrays;
+
+public class Day20 implements Solution<Integer, Long> {
+    private static final int CHEAT_DISTANCE = 20;
+    private static final int MIN_TIME_SAVED = 100;
 
-public class Day20 implements Solution {
     @Override
-    public void firstPart(String inputFile) {
-        final var raceTrack = readRaceTrack(Utils.readInputAsStream(inputFile));
+    public Integer solveFirstPart(String inputFile) {
+        final var raceTrack = readRaceTrack(Utils.mapInput(inputFile));
 
-        Point start = findStart(raceTrack);
-        Point end = findEnd(raceTrack);
+        int start = raceTrack.indexOf(RaceTrackCell.START);
+        int end = raceTrack.indexOf(RaceTrackCell.END);
+        assert start >= 0 && end >= 0 : "The race track needs to have a start and an end.";
 
         // first find the usual shortest path with no cheats
-        //HashMap<Point, Point> shortestPathParentMap = findShortestPath(startLocation, raceTrack);
-        HashMap<Point, Integer> costMap = new HashMap<>();
-        HashMap<Point, Point> shortestPathParentMap = findShortestLinearPath(start,
-                                                                             end,
-                                                                             raceTrack,
-                                                                             costMap);
-
-        assert shortestPathParentMap.containsKey(end) : "Shortest path to the end has to exist";
-
-        System.out.println(start);
-
-        System.out.println(printRaceTrack(raceTrack));
-
-        final List<List<RaceTrackCell>> raceTrackWithShortestPath = traceShortestPath(raceTrack,
-                                                                                      shortestPathParentMap,
-                                                                                      start,
-                                                                                      end);
-        /*
-         This whole business of finding the shortest path using Dijkstra seems a bit overkill.
-         We need to check the actual puzzle input and determine if the path is linear and always
-         ends at the end of the racetrack, if so there is no need to perform path finding
-         algorithms.
-         If however, the track has dead ends, we need to find a proper path.
-
-         If however the linear path assumption is true, we can solve the puzzle as follows:
-         - step along the only possible path, counting the number of steps at each location
-         - then do a second pass and try to 'look through the wall'
-         - if within a 5x5 rim around the current position there are cells that are empty and
-           have a higher cost (i.e. they lie on a later part of the path), those will be classified
-           as shortcuts and given that we have stored costs of all locations we can take the
-           difference and immediately determine how many steps would be saved by executing the
-           cheat.
-           By 'rim' I refer to the outer row of the 5x5 square centered at the current location.
-         - the solution described above would be both easier to implement and also allow us to
-           find the answer faster.
-         */
-
-        // Now we need to iterate over the shortest path and scan for the possible shortcuts to take
-
-        final List<Shortcut> shortcuts = walkShortestPathAndFindShortcuts(raceTrack,
-                                                                          shortestPathParentMap,
-                                                                          costMap,
-                                                                          start,
-                                                                          end);
-
-        final Map<Integer, List<Shortcut>> timeSavedToShortcut = shortcuts.stream()
-                .collect(Collectors.groupingBy(shortcut -> shortcut.costSaved));
+        int[] costs = new int[raceTrack.size()];
+        int[] shortestPath = findShortestLinearPath(start, end, raceTrack, costs);
 
-        int eligibleShortcutCount = 0;
-        for (final var entry : timeSavedToShortcut.entrySet()
-                .stream()
-                .sorted(Comparator.comparingInt(entry -> entry.getValue().size()))
-                .toList()) {
-            if (entry.getKey() >= 100) {
-                eligibleShortcutCount += entry.getValue().size();
-            }
-            if (entry.getValue().size() > 1) {
-                System.out.println("There are %d cheats that save %d picoseconds.".formatted(entry.getValue()
-                                                                                                     .size(),
-                                                                                             entry.getKey()));
-            } else {
-                System.out.println("There is one cheat that saves %d picoseconds.".formatted(entry.getKey()));
-            }
+        assert shortestPath[shortestPath.length - 1] == end : "Shortest path to the end has to exist";
+
+        if (Utils.VERBOSE) {
+            System.out.println(raceTrack.pointAt(start));
         }
 
-        System.out.println("There are %d shortcuts that save at least 100 picoseconds.".formatted(
-                eligibleShortcutCount));
+        if (Utils.VERBOSE) {
+            System.out.println(printRaceTrack(raceTrack));
+            System.out.println(printRaceTrack(traceShortestPath(raceTrack, shortestPath)));
+        }
 
+        // Now we walk along the shortest path and count the shortcuts through a single wall
+        // that save enough time.
+        int[] cheatsByTimeSaved = Utils.VERBOSE ? new int[shortestPath.length] : null;
+        final int eligibleShortcutCount = countShortcuts(raceTrack,
+                                                         shortestPath,
+                                                         costs,
+                                                         cheatsByTimeSaved);
+
+        if (Utils.VERBOSE) {
+            printCheatsByTimeSaved(cheatsByTimeSaved);
+            System.out.println("There are %d shortcuts that save at least %d picoseconds.".formatted(
+                    eligibleShortcutCount, MIN_TIME_SAVED));
+        }
+        return eligibleShortcutCount;
     }
 
-    private HashMap<Point, Point> findShortestLinearPath(
-            Point startLocation,
-            Point endLocation,
-            List<List<RaceTrackCell>> raceTrack,
-            HashMap<Point, Integer> costMap
+    /**
+     * Walks the race track from the start to the end, the track is assumed to have no
+     * crossroads, so at each step there is exactly one cell that hasn't been visited yet.
+     *
+     * @param costs filled with the number of steps from the start for each cell on the
+     *              path and -1 for the cells that are not on it.
+     * @return Indices of the cells on the path in the order in which they are visited.
+     */
+    private int[] findShortestLinearPath(
+            int startLocation,
+            int endLocation,
+            EnumGrid<RaceTrackCell> raceTrack,
+            int[] costs
     ) {
-
-        Point current = startLocation;
-        HashSet<Point> visited = new HashSet<>();
-        HashMap<Point, Point> pathParentMap = new HashMap<>();
+        Arrays.fill(costs, -1);
+        int[] path = new int[raceTrack.size()];
+        int current = startLocation;
         int cost = 0;
-        Set<RaceTrackCell> traversableTrackTypes = Set.of(RaceTrackCell.TRACK,
-                                                          RaceTrackCell.START,
-                                                          RaceTrackCell.END);
-        do {
-            costMap.put(current, cost);
-            visited.add(current);
-            List<Point> neighbours = current.getNeighbourLocationsInsideGrid(raceTrack)
-                    .stream()
-                    .filter(nb -> traversableTrackTypes.contains(nb.indexGrid(raceTrack)))
-                    .filter(Predicate.not(visited::contains))
-                    .toList();
-
-            assert neighbours.size() == 1 :
-                    "The path is assumed to be linear and contain no crossroads";
-
-            pathParentMap.put(neighbours.getFirst(), current);
-            current = neighbours.getFirst();
+        while (current != endLocation) {
+            costs[current] = cost;
+            path[cost] = current;
+            int next = -1;
+            for (int k = 0; k < Point.Connectivity.FOUR.size(); k++) {
+                int nb = raceTrack.neighbour(current, Point.Connectivity.FOUR, k);
+                if (nb >= 0 && costs[nb] == -1 && !raceTrack.get(nb).equals(RaceTrackCell.WALL)) {
+                    assert next == -1 : "The path is assumed to be linear and contain no crossroads";
+                    next = nb;
+                }
+            }
+            assert next != -1 : "The path is assumed to reach the end of the race track";
+            current = next;
             cost += 1;
+        }
+        costs[endLocation] = cost;
+        path[cost] = endLocation;
 
-        } while (!current.equals(endLocation));
-        costMap.put(endLocation, cost);
-
-        return pathParentMap;
-    }
-
-    private record Shortcut(Point from, Point to, int costSaved) {
+        return Arrays.copyOf(path, cost + 1);
     }
 
-    private List<Shortcut> walkShortestPathAndFindShortcutsPart2(
-            List<List<RaceTrackCell>> raceTrack,
-            HashMap<Point, Point> shortestPathParentMap,
-            HashMap<Point, Integer> costMap,
-            Point startLocation,
-            Point endLocation
+    /**
+     * Counts the cheats of up to {@link #CHEAT_DISTANCE} picoseconds that save at least
+     * {@link #MIN_TIME_SAVED} picoseconds. The cheats are only counted, nothing is
+     * allocated per cheat.
+     *
+     * @param cheatsByTimeSaved if not null, incremented at the time saved by each of the
+     *                          cheats that save any time at all.
+     */
+    private long countShortcutsPart2(
+            EnumGrid<RaceTrackCell> raceTrack,
+            int[] shortestPath,
+            int[] costs,
+            int[] cheatsByTimeSaved
     ) {
-        Point current = startLocation;
-
+        long eligibleShortcutCount = 0;
         // We need to traverse from start to end to find shortcuts.
-        Map<Point, Point> shortestPathChildMap = shortestPathParentMap.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
-
-        List<Shortcut> accessibleShortcuts = new ArrayList<>();
-        do {
-            // Find all accessible shortcut
-            List<Point> possibleShortcuts = findShortcutLocations(current, raceTrack, 20);
-            for (Point shortcutDestination : possibleShortcuts) {
-                int currentCost = costMap.get(current);
-                int shortcutDestinationCost = costMap.get(shortcutDestination);
-                int shortcutLength = current.getManhattanDistanceTo(shortcutDestination);
-
-                if (shortcutDestinationCost > currentCost) {
-                    // Taking the shortcut takes 2 picoseconds, hence we subtract it from the
-                    // total time saved.
-                    int timeSaved = shortcutDestinationCost - currentCost - shortcutLength;
-                    accessibleShortcuts.add(new Shortcut(current, shortcutDestination, timeSaved));
+        for (int i = 0; i < shortestPath.length - 1; i++) {
+            int current = shortestPath[i];
+            int currentCost = costs[current];
+            int x = raceTrack.x(current);
+            int y = raceTrack.y(current);
+            // Find all accessible shortcuts, i.e. track cells within the cheat distance
+            // that lie on a later part of the path.
+            for (int yDisplacement = -CHEAT_DISTANCE; yDisplacement <= CHEAT_DISTANCE; yDisplacement++) {
+                int remaining = CHEAT_DISTANCE - Math.abs(yDisplacement);
+                for (int xDisplacement = -remaining; xDisplacement <= remaining; xDisplacement++) {
+                    if (!raceTrack.isInside(x + xDisplacement, y + yDisplacement)) {
+                        continue;
+                    }
+                    int shortcutDestination = raceTrack.index(x + xDisplacement, y + yDisplacement);
+                    int shortcutDestinationCost = costs[shortcutDestination];
+                    int shortcutLength = Math.abs(xDisplacement) + Math.abs(yDisplacement);
+
+                    if (shortcutDestinationCost > currentCost) {
+                        // Taking the shortcut takes as many picoseconds as its length, hence
+                        // we subtract it from the total time saved.
+                        int timeSaved = shortcutDestinationCost - currentCost - shortcutLength;
+                        if (timeSaved >= MIN_TIME_SAVED) {
+                            eligibleShortcutCount++;
+                        }
+                        if (cheatsByTimeSaved != null && timeSaved > 0) {
+                            cheatsByTimeSaved[timeSaved]++;
+                        }
+                    }
                 }
             }
+        }
 
-            current = shortestPathChildMap.get(current);
-        } while (!current.equals(endLocation));
-
-        return accessibleShortcuts;
+        return eligibleShortcutCount;
     }
 
-    private List<Shortcut> walkShortestPathAndFindShortcuts(
-            List<List<RaceTrackCell>> raceTrack,
-            HashMap<Point, Point> shortestPathParentMap,
-            HashMap<Point, Integer> costMap,
-            Point startLocation,
-            Point endLocation
+    /**
+     * Counts the cheats through a single wall that save at least {@link #MIN_TIME_SAVED}
+     * picoseconds, see {@link #countShortcutsPart2}.
+     */
+    private int countShortcuts(
+            EnumGrid<RaceTrackCell> raceTrack,
+            int[] shortestPath,
+            int[] costs,
+            int[] cheatsByTimeSaved
     ) {
-        Point current = startLocation;
-
+        int eligibleShortcutCount = 0;
         // We need to traverse from start to end to find shortcuts.
-        Map<Point, Point> shortestPathChildMap = shortestPathParentMap.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
-
-        List<Shortcut> accessibleShortcuts = new ArrayList<>();
-        do {
-            // Find all accessible shortcut
-            List<Point> possibleShortcuts = findShortcutLocations(current, raceTrack);
-            for (Point shortcutDestination : possibleShortcuts) {
-                int currentCost = costMap.get(current);
-                int shortcutDestinationCost = costMap.get(shortcutDestination);
+        for (int i = 0; i < shortestPath.length - 1; i++) {
+            int current = shortestPath[i];
+            int currentCost = costs[current];
+            // Find all accessible shortcuts, i.e. cells right behind a single wall
+            for (int k = 0; k < Point.Connectivity.FOUR.size(); k++) {
+                int neighbour = raceTrack.neighbour(current, Point.Connectivity.FOUR, k);
+                if (neighbour < 0 || !raceTrack.get(neighbour).equals(RaceTrackCell.WALL)) {
+                    continue;
+                }
+                int shortcutDestination = raceTrack.neighbour(neighbour, Point.Connectivity.FOUR, k);
+                if (shortcutDestination < 0) {
+                    continue;
+                }
+                int shortcutDestinationCost = costs[shortcutDestination];
 
                 if (shortcutDestinationCost > currentCost) {
                     // Taking the shortcut takes 2 picoseconds, hence we subtract it from the
                     // total time saved.
                     int timeSaved = shortcutDestinationCost - currentCost - 2;
-                    accessibleShortcuts.add(new Shortcut(current, shortcutDestination, timeSaved));
-                }
-            }
-
-            current = shortestPathChildMap.get(current);
-        } while (!current.equals(endLocation));
-
-        return accessibleShortcuts;
-    }
-
-    private List<Point> findShortcutLocations(Point current, List<List<RaceTrackCell>> raceTrack) {
-        List<Point> accessibleShortcuts = new ArrayList<>();
-
-        for (Point neighbour : current.getNeighbourLocationsInsideGrid(raceTrack)) {
-            if (neighbour.indexGrid(raceTrack).equals(RaceTrackCell.WALL)) {
-                Point shortcutDestination = neighbour.translateBy(neighbour.difference(current));
-                if (shortcutDestination.isInsideGrid(raceTrack) && List.of(RaceTrackCell.TRACK,
-                                                                           RaceTrackCell.END)
-                        .contains(shortcutDestination.indexGrid(raceTrack))) {
-                    accessibleShortcuts.add(shortcutDestination);
-                }
-            }
-        }
-        return accessibleShortcuts;
-    }
-
-    private List<Point> findShortcutLocations(Point current, List<List<RaceTrackCell>> raceTrack, int shortcutLength) {
-        List<Point> accessibleShortcuts = new ArrayList<>();
-
-        for (int yDisplacement = -shortcutLength; yDisplacement <= shortcutLength; yDisplacement++) {
-            for (int xDisplacement = -shortcutLength; xDisplacement <= shortcutLength; xDisplacement++) {
-                if (Math.abs(xDisplacement)+ Math.abs(yDisplacement) <= shortcutLength) {
-                    Point destination = new Point(current.x() + xDisplacement, current.y() + yDisplacement);
-                    if (destination.isInsideGrid(raceTrack) && List.of(RaceTrackCell.TRACK,
-                                                                       RaceTrackCell.END).contains(destination.indexGrid(raceTrack))) {
-                        accessibleShortcuts.add(destination);
+                    if (timeSaved >= MIN_TIME_SAVED) {
+                        eligibleShortcutCount++;
+                    }
+                    if (cheatsByTimeSaved != null && timeSaved > 0) {
+                        cheatsByTimeSaved[timeSaved]++;
                     }
                 }
             }
         }
 
-        return accessibleShortcuts;
-    }
-
-    private List<List<RaceTrackCell>> traceShortestPath(
-            List<List<RaceTrackCell>> raceTrack,
-            HashMap<Point, Point> shortestPathParentMap,
-            Point startLocation,
-            Point endLocation
-    ) {
-        List<List<RaceTrackCell>> raceTrackCopy = Utils.getMutableGridCopy(raceTrack);
-        Point current = endLocation;
-
-        do {
-            current.indexGridAndSet(raceTrackCopy, RaceTrackCell.PATH);
-            current = shortestPathParentMap.get(current);
-        } while (!current.equals(startLocation));
-
-        return raceTrackCopy;
+        return eligibleShortcutCount;
     }
 
-    private HashMap<Point, Point> findShortestPath(
-            Point startLocation,
-            List<List<RaceTrackCell>> raceTrack
-    ) {
-        List<Point> toVisitQueue = findCellsToVisit(raceTrack);
-        // Find all cells that can be visited:
-
-        HashMap<Point, Integer> costMap = new HashMap<>();
-        HashMap<Point, Point> shortestPath = new HashMap<>();
-        costMap.put(startLocation, 0);
-        do {
-            toVisitQueue.sort(Comparator.comparing(p -> costMap.getOrDefault(p,
-                                                                             Integer.MAX_VALUE)));
-            Point current = toVisitQueue.removeFirst();
-
-            List<Point> neighbours = current.getNeighbourLocationsInsideGrid(raceTrack)
-                    .stream()
-                    .filter(p -> !p.indexGrid(raceTrack).equals(RaceTrackCell.WALL))
-                    .toList();
-
-            for (Point neighbour : neighbours) {
-                int costThroughCurrent = costMap.get(current) + 1;
-                int neighbourCurrentCost = costMap.getOrDefault(neighbour, Integer.MAX_VALUE);
-
-                if (costThroughCurrent < neighbourCurrentCost) {
-                    shortestPath.put(neighbour, current);
-                    costMap.put(neighbour, costThroughCurrent);
-                }
-            }
-
-        } while (!toVisitQueue.isEmpty());
-
-        return shortestPath;
-    }
-
-    private List<Point> findCellsToVisit(List<List<RaceTrackCell>> raceTrack) {
-        List<Point> cellsToVisit = new ArrayList<>();
-        for (int i = 0; i < raceTrack.size(); i++) {
-            for (int j = 0; j < raceTrack.get(0).size(); j++) {
-                Point currentLocation = new Point(j, i);
-                if (!currentLocation.indexGrid(raceTrack).equals(RaceTrackCell.WALL)) {
-                    cellsToVisit.add(currentLocation);
-                }
+    private static void printCheatsByTimeSaved(int[] cheatsByTimeSaved) {
+        for (int timeSaved = 1; timeSaved < cheatsByTimeSaved.length; timeSaved++) {
+            int count = cheatsByTimeSaved[timeSaved];
+            if (count > 1) {
+                System.out.println("There are %d cheats that save %d picoseconds.".formatted(count,
+                                                                                             timeSaved));
+            } else if (count == 1) {
+                System.out.println("There is one cheat that saves %d picoseconds.".formatted(timeSaved));
             }
         }
-        return cellsToVisit;
     }
 
-    private Point findStart(List<List<RaceTrackCell>> raceTrack) {
-        return findLocationSatisfying(raceTrack,
-                                      point -> point.indexGrid(raceTrack)
-                                              .equals(RaceTrackCell.START));
-    }
-
-    private Point findEnd(List<List<RaceTrackCell>> raceTrack) {
-        return findLocationSatisfying(raceTrack,
-                                      point -> point.indexGrid(raceTrack)
-                                              .equals(RaceTrackCell.END));
-    }
-
-    private Point findLocationSatisfying(
-            List<List<RaceTrackCell>> raceTrack,
-            Predicate<Point> test
+    private EnumGrid<RaceTrackCell> traceShortestPath(
+            EnumGrid<RaceTrackCell> raceTrack,
+            int[] shortestPath
     ) {
-        for (int i = 0; i < raceTrack.size(); i++) {
-            for (int j = 0; j < raceTrack.get(0).size(); j++) {
-                Point currentLocation = new Point(j, i);
-                if (test.test(currentLocation)) {
-                    return currentLocation;
-                }
-            }
+        EnumGrid<RaceTrackCell> raceTrackCopy = raceTrack.copy();
+        // The start keeps its original marking.
+        for (int i = 1; i < shortestPath.length; i++) {
+            raceTrackCopy.set(shortestPath[i], RaceTrackCell.PATH);
         }
-        throw new IllegalStateException(
-                "Point satisfying predicate not found of the race track not found");
+        return raceTrackCopy;
     }
 
-    private String printRaceTrack(List<List<RaceTrackCell>> raceTrack) {
-        return raceTrack.stream()
-                .map(row -> row.stream()
-                        .map(RaceTrackCell::toString)
-                        .collect(Collectors.joining("")))
-                .collect(Collectors.joining("\n"));
+    private String printRaceTrack(EnumGrid<RaceTrackCell> raceTrack) {
+        return raceTrack.toString();
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        final var raceTrack = readRaceTrack(Utils.readInputAsStream(inputFile));
+    public Long solveSecondPart(String inputFile) {
+        final var raceTrack = readRaceTrack(Utils.mapInput(inputFile));
 
-        Point start = findStart(raceTrack);
-        Point end = findEnd(raceTrack);
+        int start = raceTrack.indexOf(RaceTrackCell.START);
+        int end = raceTrack.indexOf(RaceTrackCell.END);
+        assert start >= 0 && end >= 0 : "The race track needs to have a start and an end.";
 
         // first find the usual shortest path with no cheats
-        //HashMap<Point, Point> shortestPathParentMap = findShortestPath(startLocation, raceTrack);
-        HashMap<Point, Integer> costMap = new HashMap<>();
-        HashMap<Point, Point> shortestPathParentMap = findShortestLinearPath(start,
-                                                                             end,
-                                                                             raceTrack,
-                                                                             costMap);
+        int[] costs = new int[raceTrack.size()];
+        int[] shortestPath = findShortestLinearPath(start, end, raceTrack, costs);
 
-        assert shortestPathParentMap.containsKey(end) : "Shortest path to the end has to exist";
+        assert shortestPath[shortestPath.length - 1] == end : "Shortest path to the end has to exist";
 
-        System.out.println(start);
-
-        System.out.println(printRaceTrack(raceTrack));
-
-        final List<Shortcut> shortcuts = walkShortestPathAndFindShortcutsPart2(raceTrack,
-                                                                          shortestPathParentMap,
-                                                                          costMap,
-                                                                          start,
-                                                                          end);
-
-        final Map<Integer, List<Shortcut>> timeSavedToShortcut = shortcuts.stream()
-                .collect(Collectors.groupingBy(shortcut -> shortcut.costSaved));
+        if (Utils.VERBOSE) {
+            System.out.println(raceTrack.pointAt(start));
+        }
 
-        long eligibleShortcutCount = 0;
-        for (final var entry : timeSavedToShortcut.entrySet()
-                .stream()
-                .sorted(Comparator.comparingInt(entry -> entry.getKey()))
-                .toList()) {
-            if (entry.getKey() >= 100) {
-                eligibleShortcutCount += entry.getValue().size();
-            }
-            if (entry.getValue().size() > 1) {
-                System.out.println("There are %d cheats that save %d picoseconds.".formatted(entry.getValue()
-                                                                                                     .size(),
-                                                                                             entry.getKey()));
-            } else {
-                System.out.println("There is one cheat that saves %d picoseconds.".formatted(entry.getKey()));
-            }
+        if (Utils.VERBOSE) {
+            System.out.println(printRaceTrack(raceTrack));
         }
 
-        System.out.println("There are %d shortcuts that save at least 100 picoseconds.".formatted(
-                eligibleShortcutCount));
+        int[] cheatsByTimeSaved = Utils.VERBOSE ? new int[shortestPath.length] : null;
+        final long eligibleShortcutCount = countShortcutsPart2(raceTrack,
+                                                               shortestPath,
+                                                               costs,
+                                                               cheatsByTimeSaved);
 
+        if (Utils.VERBOSE) {
+            printCheatsByTimeSaved(cheatsByTimeSaved);
+            System.out.println("There are %d shortcuts that save at least %d picoseconds.".formatted(
+                    eligibleShortcutCount, MIN_TIME_SAVED));
+        }
+        return eligibleShortcutCount;
     }
 
-    private List<List<RaceTrackCell>> readRaceTrack(Stream<String> inputStream) {
-        return inputStream.map(line -> line.chars()
-                .mapToObj(c -> String.valueOf((char) c))
-                .map(RaceTrackCell::fromString)
-                .toList()).toList();
+    private EnumGrid<RaceTrackCell> readRaceTrack(MappedInput input) {
+        return EnumGrid.parse(input, RaceTrackCell.class, RaceTrackCell::fromChar);
     }
 
     enum RaceTrackCell {
@@ -408,13 +267,13 @@ public class Day20 implements Solution {
             return representation;
         }
 
-        public static RaceTrackCell fromString(String representation) {
+        public static RaceTrackCell fromChar(char representation) {
             return switch (representation) {
-                case "#" -> RaceTrackCell.WALL;
-                case "." -> RaceTrackCell.TRACK;
-                case "S" -> RaceTrackCell.START;
-                case "E" -> RaceTrackCell.END;
-                case "*" -> RaceTrackCell.PATH;
+                case '#' -> RaceTrackCell.WALL;
+                case '.' -> RaceTrackCell.TRACK;
+                case 'S' -> RaceTrackCell.START;
+                case 'E' -> RaceTrackCell.END;
+                case '*' -> RaceTrackCell.PATH;
                 default -> throw new IllegalStateException("Unexpected value: " + representation);
             };
         }
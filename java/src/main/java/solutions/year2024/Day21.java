@@ -10,13 +10,15 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day21 implements Solution {
+public class Day21 implements Solution<Integer, Long> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
         List<Code> requiredCodes = readInput(Utils.readInputAsStream(inputFile));
 
-        System.out.println("Read codes required to open the door:");
-        System.out.println(Utils.toStringLineByLine(requiredCodes));
+        if (Utils.VERBOSE) {
+            System.out.println("Read codes required to open the door:");
+            System.out.println(Utils.toStringLineByLine(requiredCodes));
+        }
 
         List<ControllerInput> firstRobotInputs = requiredCodes.stream()
                 .map(code -> findRequiredKeypadSequences(
@@ -24,8 +26,10 @@ public class Day21 implements Solution {
                         DoorKeypadButton.ACTION.locationOnKeypad,
                         DoorKeypadButton.GAP.locationOnKeypad
                 )).toList();
-        System.out.println("Inputs required to enter into the first robot: ");
-        System.out.println(Utils.toStringLineByLine(firstRobotInputs));
+        if (Utils.VERBOSE) {
+            System.out.println("Inputs required to enter into the first robot: ");
+            System.out.println(Utils.toStringLineByLine(firstRobotInputs));
+        }
 
         List<ControllerInput> secondRobotInputs = firstRobotInputs.stream()
                 .map(code -> findRequiredKeypadSequences(
@@ -34,8 +38,10 @@ public class Day21 implements Solution {
                         ControllerKeyPadButton.GAP.locationOnKeypad
                 )).toList();
 
-        System.out.println("Inputs required to enter into the second robot: ");
-        System.out.println(Utils.toStringLineByLine(secondRobotInputs));
+        if (Utils.VERBOSE) {
+            System.out.println("Inputs required to enter into the second robot: ");
+            System.out.println(Utils.toStringLineByLine(secondRobotInputs));
+        }
 
 
         List<ControllerInput> thirdRobotInputs = secondRobotInputs.stream()
@@ -44,33 +50,40 @@ public class Day21 implements Solution {
                         ControllerKeyPadButton.ACTION.locationOnKeypad,
                         ControllerKeyPadButton.GAP.locationOnKeypad
                 )).toList();
-        System.out.println("Inputs required to enter into the third robot: ");
-        System.out.println(Utils.toStringLineByLine(thirdRobotInputs));
+        if (Utils.VERBOSE) {
+            System.out.println("Inputs required to enter into the third robot: ");
+            System.out.println(Utils.toStringLineByLine(thirdRobotInputs));
+        }
 
 
         int totalCodesComplexity = 0;
         for (int i = 0; i < requiredCodes.size(); i++) {
             Code code = requiredCodes.get(i);
             ControllerInput input = thirdRobotInputs.get(i);
-            System.out.printf("%s: %s%n", code, input);
+            if (Utils.VERBOSE) {
+                System.out.printf("%s: %s%n", code, input);
+            }
             int numericCodePart = Integer.parseInt(code.toString().substring(
                     0,
                     code.toString().length() - 1
             ));
             int shortestSequenceLength = input.buttonSequence.size();
             int complexity = numericCodePart * shortestSequenceLength;
-            System.out.printf(
-                    "Code complexity: %d * %d = %d%n",
-                    shortestSequenceLength,
-                    numericCodePart,
-                    complexity
-            );
+            if (Utils.VERBOSE) {
+                System.out.printf(
+                        "Code complexity: %d * %d = %d%n",
+                        shortestSequenceLength,
+                        numericCodePart,
+                        complexity
+                );
+            }
             totalCodesComplexity += complexity;
         }
 
-        System.out.printf("Total complexity: %d", totalCodesComplexity);
-
-
+        if (Utils.VERBOSE) {
+            System.out.printf("Total complexity: %d", totalCodesComplexity);
+        }
+        return totalCodesComplexity;
     }
 
     private ControllerInput findRequiredKeypadSequencesCacheChunks(
@@ -218,11 +231,13 @@ public class Day21 implements Solution {
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public Long solveSecondPart(String inputFile) {
         List<Code> requiredCodes = readInput(Utils.readInputAsStream(inputFile));
 
-        System.out.println("Read codes required to open the door:");
-        System.out.println(Utils.toStringLineByLine(requiredCodes));
+        if (Utils.VERBOSE) {
+            System.out.println("Read codes required to open the door:");
+            System.out.println(Utils.toStringLineByLine(requiredCodes));
+        }
 
         // It seems like by going forward we can barely manage to process a chain of 23 robots.
         // anything over that fails because of string builder capacity error.
@@ -241,13 +256,17 @@ public class Day21 implements Solution {
             // get us into the world of keypad sequences. From then onwards we are operating on
             // cached sequences to speed up the process.
             // We try to process only a single key
-            System.out.println("Processing key presses required by robot 2 to enter into the robot 1");
+            if (Utils.VERBOSE) {
+                System.out.println("Processing key presses required by robot 2 to enter into the robot 1");
+            }
             ControllerInput currentRobotInput = findRequiredKeypadSequences(
                     code.buttonSequence,
                     DoorKeypadButton.ACTION.locationOnKeypad,
                     DoorKeypadButton.GAP.locationOnKeypad
             );
-            System.out.println(currentRobotInput);
+            if (Utils.VERBOSE) {
+                System.out.println(currentRobotInput);
+            }
 
 
             shortestSequenceLengths.put(code, findRequiredKeyPresses(currentRobotInput.buttonSequence, 1, numberOfRobots, cache));
@@ -263,24 +282,30 @@ public class Day21 implements Solution {
             ));
             long shortestSequenceLength = shortestSequenceLengths.get(code);
             long complexity = numericCodePart * shortestSequenceLength;
-            System.out.printf(
-                    "Code complexity: %d * %d = %d%n",
-                    shortestSequenceLength,
-                    numericCodePart,
-                    complexity
-            );
+            if (Utils.VERBOSE) {
+                System.out.printf(
+                        "Code complexity: %d * %d = %d%n",
+                        shortestSequenceLength,
+                        numericCodePart,
+                        complexity
+                );
+            }
             totalCodesComplexity += complexity;
         }
 
-        System.out.printf("Total complexity: %d", totalCodesComplexity);
-
-
+        if (Utils.VERBOSE) {
+            System.out.printf("Total complexity: %d", totalCodesComplexity);
+        }
+        return totalCodesComplexity;
     }
-    public void secondPartWithMapCompaction(String inputFile) {
+
+    public long secondPartWithMapCompaction(String inputFile) {
         List<Code> requiredCodes = readInput(Utils.readInputAsStream(inputFile));
 
-        System.out.println("Read codes required to open the door:");
-        System.out.println(Utils.toStringLineByLine(requiredCodes));
+        if (Utils.VERBOSE) {
+            System.out.println("Read codes required to open the door:");
+            System.out.println(Utils.toStringLineByLine(requiredCodes));
+        }
 
         // It seems like by going forward we can barely manage to process a chain of 23 robots.
         // anything over that fails because of string builder capacity error.
@@ -298,16 +323,22 @@ public class Day21 implements Solution {
             // get us into the world of keypad sequences. From then onwards we are operating on
             // cached sequences to speed up the process.
             // We try to process only a single key
-            System.out.println("Processing key presses required by robot 2 to enter into the robot 1");
+            if (Utils.VERBOSE) {
+                System.out.println("Processing key presses required by robot 2 to enter into the robot 1");
+            }
             ControllerInput currentRobotInput = findRequiredKeypadSequences(
                     code.buttonSequence,
                     DoorKeypadButton.ACTION.locationOnKeypad,
                     DoorKeypadButton.GAP.locationOnKeypad
             );
-            System.out.println(currentRobotInput);
+            if (Utils.VERBOSE) {
+                System.out.println(currentRobotInput);
+            }
 
             var countedUniqueKeyPresses = countUniqueKeyPresses(currentRobotInput);
-            System.out.println(countedUniqueKeyPresses);
+            if (Utils.VERBOSE) {
+                System.out.println(countedUniqueKeyPresses);
+            }
 
             for (int i = 0; i < numberOfRobots - 1; i++) {
                 countedUniqueKeyPresses = findRequiredKeypadSequencesMapCompaction(
@@ -316,8 +347,10 @@ public class Day21 implements Solution {
                         ControllerKeyPadButton.GAP.locationOnKeypad
                 );
 
-                System.out.println(("Processing key presses required to enter into the robot "
-                                    + "number %d: ").formatted(i + 2));
+                if (Utils.VERBOSE) {
+                    System.out.println(("Processing key presses required to enter into the robot "
+                                        + "number %d: ").formatted(i + 2));
+                }
             }
             keysPerCode.add(countedUniqueKeyPresses);
         }
@@ -332,18 +365,21 @@ public class Day21 implements Solution {
             ));
             long shortestSequenceLength = keysPerCode.get(i).values().stream().reduce(Long::sum).get();
             long complexity = numericCodePart * shortestSequenceLength;
-            System.out.printf(
-                    "Code complexity: %d * %d = %d%n",
-                    shortestSequenceLength,
-                    numericCodePart,
-                    complexity
-            );
+            if (Utils.VERBOSE) {
+                System.out.printf(
+                        "Code complexity: %d * %d = %d%n",
+                        shortestSequenceLength,
+                        numericCodePart,
+                        complexity
+                );
+            }
             totalCodesComplexity += complexity;
         }
 
-        System.out.printf("Total complexity: %d", totalCodesComplexity);
-
-
+        if (Utils.VERBOSE) {
+            System.out.printf("Total complexity: %d", totalCodesComplexity);
+        }
+        return totalCodesComplexity;
     }
 
     private static Long findRequiredKeyPresses(List<ControllerKeyPadButton> buttonsToPress, int level, int requiredLevels, Map<Pair<List<ControllerKeyPadButton>, Integer>, Long> cache) {
@@ -1,179 +1,175 @@
 package solutions.year2024;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.ToString;
-import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
-public class Day22 implements Solution {
+public class Day22 implements Solution<Long, Integer> {
     private static final int EVOLUTION_ITERATIONS = 2000;
+    private static final int PRUNE_MASK = (1 << 24) - 1;
+
+    // Prices are single digits, so a change between two prices lies in -9..9.
+    private static final int PRICE_CHANGE_VALUES = 19;
+    private static final int CHANGE_SEQUENCE_LENGTH = 4;
+    private static final int CHANGE_SEQUENCE_COUNT = PRICE_CHANGE_VALUES
+                                                     * PRICE_CHANGE_VALUES
+                                                     * PRICE_CHANGE_VALUES
+                                                     * PRICE_CHANGE_VALUES;
 
     @Override
-    public void firstPart(String inputFile) {
-        List<SecretNumber> secretNumbers = readSecretNumbers(Utils.readInputAsStream(inputFile));
-
-
-        int progressLogIterationInterval = 100;
-        for (int j = 0; j < secretNumbers.size(); j++) {
-            SecretNumber number = secretNumbers.get(j);
-            System.out.println("Processing number: %s (%d/%d)".formatted(
-                    number.initialValue,
-                    j,
-                    secretNumbers.size()
-            ));
-            for (int i = 0; i < EVOLUTION_ITERATIONS; i++) {
-                number.evolve();
-                if (i % progressLogIterationInterval == 0) {
-                    System.out.println("Progress: (%d/%d)".formatted(i, EVOLUTION_ITERATIONS));
-                }
+    public Long solveFirstPart(String inputFile) {
+        int[] secretNumbers = readSecretNumbers(Utils.mapInput(inputFile));
+
+        long[] evolvedNumbers = IntStream.range(0, secretNumbers.length)
+                .parallel()
+                .mapToLong(i -> {
+                    int value = secretNumbers[i];
+                    for (int j = 0; j < EVOLUTION_ITERATIONS; j++) {
+                        value = evolve(value);
+                    }
+                    return value;
+                })
+                .toArray();
+
+        if (Utils.VERBOSE) {
+            for (int i = 0; i < secretNumbers.length; i++) {
+                System.out.println("%d: %d".formatted(secretNumbers[i], evolvedNumbers[i]));
             }
         }
 
-        for (SecretNumber number : secretNumbers) {
-            System.out.println(number.showCurrentState());
+        long secretNumberCurrentValueSum = 0;
+        for (long value : evolvedNumbers) {
+            secretNumberCurrentValueSum += value;
         }
 
-        long secretNumberCurrentValueSum = secretNumbers.stream().map(SecretNumber::getValue)
-                .reduce(Long::sum).get();
-
-        System.out.println("Adding up the 2000th new secret number for each buyer produces %d.".formatted(
-                secretNumberCurrentValueSum));
-
-
+        if (Utils.VERBOSE) {
+            System.out.println("Adding up the 2000th new secret number for each buyer produces %d.".formatted(
+                    secretNumberCurrentValueSum));
+        }
+        return secretNumberCurrentValueSum;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        // We need to create a map from the sequence of changes to the sell price and then pick
-        // the best one
-        List<SecretNumber> secretNumbers = readSecretNumbers(Utils.readInputAsStream(inputFile));
-
-        Map<ChangeSequence, Map<SecretNumber, Integer>> sellPriceByChangeSequence = new HashMap<>();
-
-        int progressLogIterationInterval = 100;
-        for (int j = 0; j < secretNumbers.size(); j++) {
-            SecretNumber number = secretNumbers.get(j);
-            System.out.println("Processing number: %s (%d/%d)".formatted(
-                    number.initialValue,
-                    j,
-                    secretNumbers.size()
-            ));
-            // First we populate the initial list of four changes
-            List<Integer> initialChanges = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                int price = number.getPrice();
-                number.evolve();
-                int newPrice = number.getPrice();
-                int change = newPrice - price;
-                //System.out.println("%d : %d (%d) (evolutios: %d)".formatted(number.getValue(), newPrice, change, number.getEvolutionCount()));
-                initialChanges.add(change);
-            }
-            ChangeSequence changeSequence = new ChangeSequence(initialChanges);
-            sellPriceByChangeSequence.putIfAbsent(changeSequence, new HashMap<>());
-            // First time we always put the number because it is the first time we are processing
-            // this number that corresponds to a single buyer
-            sellPriceByChangeSequence.get(changeSequence).put(number, number.getPrice());
-            for (int i = 0; i < EVOLUTION_ITERATIONS - 4; i++) {
-                int price = number.getPrice();
-                number.evolve();
-                int newPrice = number.getPrice();
-                int change = newPrice - price;
-                //System.out.println("%d : %d (%d) (evolutios: %d)".formatted(number.getValue(), newPrice, change, number.getEvolutionCount()));
-                changeSequence = changeSequence.update(change);
-                sellPriceByChangeSequence.putIfAbsent(changeSequence, new HashMap<>());
-                // Here we only put if the number is not already there in the map.
-                // The reason is that the monkey will sell immediately and then move to
-                // the next buyer so if a given change sequence occurs twice for a given buyer,
-                // we need to only use the first occurrence.
-                sellPriceByChangeSequence.get(changeSequence)
-                        .putIfAbsent(number, number.getPrice());
-
-                if (i % progressLogIterationInterval == 0) {
-                    System.out.println("Progress: (%d/%d)".formatted(i, EVOLUTION_ITERATIONS-4));
-                }
-            }
-        }
-
-        // Now we sum all prices from the sequences map to find the best one
-        Map<ChangeSequence, Integer> totalGainMap = sellPriceByChangeSequence.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().values().stream().reduce(Integer::sum).get()
-                ));
-
-        //System.out.println(totalGainMap);
-
-        List<Pair<ChangeSequence, Integer>> sortedTotalGainMap = totalGainMap.entrySet().stream()
-                .sorted(Comparator.comparingInt(Map.Entry::getValue))
-                .map(entry -> Pair.of(entry.getKey(), entry.getValue()))
-                .toList();
+    public Integer solveSecondPart(String inputFile) {
+        // We need to find out how many bananas each sequence of changes gets us in total
+        // and then pick the best one
+        int[] secretNumbers = readSecretNumbers(Utils.mapInput(inputFile));
 
-        System.out.println(sortedTotalGainMap.getLast());
-        System.out.println(sellPriceByChangeSequence.get(sortedTotalGainMap.getLast().getLeft()));
+        int[] bananasByChangeSequence = collectBananasByChangeSequence(secretNumbers);
 
-        System.out.println("The most bananas we can get is: %d".formatted(sortedTotalGainMap.getLast().getRight()));
-
-    }
+        int bestSequence = 0;
+        for (int sequence = 1; sequence < CHANGE_SEQUENCE_COUNT; sequence++) {
+            if (bananasByChangeSequence[sequence] > bananasByChangeSequence[bestSequence]) {
+                bestSequence = sequence;
+            }
+        }
 
-    private record ChangeSequence(List<Integer> changes) {
-        ChangeSequence update(int next) {
-            return new ChangeSequence(Stream.concat(changes.subList(1,4).stream(), Stream.of(next)).toList());
+        if (Utils.VERBOSE) {
+            System.out.println("Best sequence of changes: %s".formatted(printChangeSequence(
+                    bestSequence)));
+            System.out.println("The most bananas we can get is: %d".formatted(
+                    bananasByChangeSequence[bestSequence]));
         }
+        return bananasByChangeSequence[bestSequence];
     }
 
-    private List<SecretNumber> readSecretNumbers(Stream<String> input) {
-        return input.map(SecretNumber::fromString).toList();
+    /**
+     * The buyers are split into one contiguous chunk per worker thread and the chunks are
+     * evolved in parallel. Each chunk accumulates the bananas into its own table, so there
+     * are only as many tables to allocate and add up at the end as there are workers.
+     *
+     * @return Total number of bananas for each of the change sequences, indexed by the
+     * base-19 encoding of the sequence, see {@link #addBuyer}.
+     */
+    private static int[] collectBananasByChangeSequence(int[] secretNumbers) {
+        int chunkCount = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(),
+                                              secretNumbers.length));
+        return IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> {
+                    int[] bananas = new int[CHANGE_SEQUENCE_COUNT];
+                    int[] lastSeen = new int[CHANGE_SEQUENCE_COUNT];
+                    int start = (int) ((long) chunk * secretNumbers.length / chunkCount);
+                    int end = (int) ((long) (chunk + 1) * secretNumbers.length / chunkCount);
+                    for (int buyer = start; buyer < end; buyer++) {
+                        // Buyers are stamped starting from 1, as 0 marks unseen sequences.
+                        addBuyer(secretNumbers[buyer], buyer + 1, bananas, lastSeen);
+                    }
+                    return bananas;
+                })
+                .reduce((first, second) -> {
+                    for (int i = 0; i < CHANGE_SEQUENCE_COUNT; i++) {
+                        first[i] += second[i];
+                    }
+                    return first;
+                })
+                .orElseGet(() -> new int[CHANGE_SEQUENCE_COUNT]);
     }
 
-    @ToString
-    @AllArgsConstructor
-    private static class SecretNumber {
-        final long initialValue;
-        @Getter long value;
-        @Getter int evolutionCount;
-
-        static SecretNumber fromString(String input) {
-            long value = Long.parseLong(input);
-            return new SecretNumber(value, value, 0);
-        }
-
-        String showCurrentState() {
-            return "%d: %d".formatted(initialValue, value);
-        }
-
-
-        void evolve() {
-            // First evolution stage
-            long toMix1 = value * 64;
-            this.mix(toMix1);
-            this.prune();
-            // Second evolution stage
-            long toMix2 = value / 32;
-            this.mix(toMix2);
-            this.prune();
-            // Third evolution stage
-            long toMix3 = value * 2048;
-            this.mix(toMix3);
-            this.prune();
-            evolutionCount++;
+    /**
+     * Adds the price at which the buyer sells for each of the change sequences. The last
+     * four changes are kept as a rolling base-19 number, each change is shifted into the
+     * range 0..18 and the oldest one falls off when taking the remainder.
+     * <p>
+     * The monkey sells as soon as the sequence occurs, so only its first occurrence
+     * counts for each buyer. Instead of clearing a set of the seen sequences for every
+     * buyer, lastSeen holds the stamp of the last buyer that has seen each sequence.
+     */
+    private static void addBuyer(int secretNumber, int buyerStamp, int[] bananas, int[] lastSeen) {
+        int value = secretNumber;
+        int price = value % 10;
+        int sequence = 0;
+        for (int i = 1; i <= EVOLUTION_ITERATIONS; i++) {
+            value = evolve(value);
+            int newPrice = value % 10;
+            sequence = (sequence * PRICE_CHANGE_VALUES + newPrice - price + 9) % CHANGE_SEQUENCE_COUNT;
+            price = newPrice;
+            if (i >= CHANGE_SEQUENCE_LENGTH && lastSeen[sequence] != buyerStamp) {
+                lastSeen[sequence] = buyerStamp;
+                bananas[sequence] += newPrice;
+            }
         }
+    }
 
-        int getPrice() {
-            return (int) (value % 10);
+    private static String printChangeSequence(int sequence) {
+        int[] changes = new int[CHANGE_SEQUENCE_LENGTH];
+        for (int i = CHANGE_SEQUENCE_LENGTH - 1; i >= 0; i--) {
+            changes[i] = sequence % PRICE_CHANGE_VALUES - 9;
+            sequence /= PRICE_CHANGE_VALUES;
         }
+        return Arrays.toString(changes);
+    }
 
-        private void prune() {
-            this.value %= 16777216;
-        }
+    /**
+     * Multiplying and dividing by powers of two are shifts and pruning modulo 2 ^ 24
+     * keeps the lowest 24 bits, so the secret numbers always fit into an int.
+     */
+    private static int evolve(int value) {
+        // First evolution stage: mix in value * 64 and prune
+        value = (value ^ (value << 6)) & PRUNE_MASK;
+        // Second evolution stage: mix in value / 32, this cannot grow beyond 24 bits
+        value ^= value >>> 5;
+        // Third evolution stage: mix in value * 2048 and prune
+        return (value ^ (value << 11)) & PRUNE_MASK;
+    }
 
-        private void mix(long mixingCandidate) {
-            this.value ^= mixingCandidate;
+    private int[] readSecretNumbers(MappedInput input) {
+        int[] secretNumbers = new int[input.lineCount()];
+        MappedInput.LineCursor line = input.lines();
+        int count = 0;
+        while (line.next()) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            MappedInput.FieldCursor field = line.fields(' ');
+            boolean hasNumber = field.next();
+            assert hasNumber : "Each line needs to contain a secret number.";
+            secretNumbers[count++] = field.parseInt();
         }
+        return Arrays.copyOf(secretNumbers, count);
     }
 }
@@ -8,9 +8,9 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day23 implements Solution {
+public class Day23 implements Solution<Integer, String> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
         Map<Computer, List<Computer>> connectionMap = getConnectionMap(inputFile);
 
         // Now that we have the map, we need to go over the keys and see for which starting
@@ -24,15 +24,16 @@ public class Day23 implements Solution {
                 .filter(triple -> triple.connectedComputers.stream()
                         .anyMatch(Computer::belongsToChiefHistorian)).collect(Collectors.toSet());
 
-        System.out.println(
-                "There are %d triples that contain a computer owned by the chief historian.".formatted(
-                        triplesWithChiefHistorian.size()));
-
-
+        if (Utils.VERBOSE) {
+            System.out.println(
+                    "There are %d triples that contain a computer owned by the chief historian.".formatted(
+                            triplesWithChiefHistorian.size()));
+        }
+        return triplesWithChiefHistorian.size();
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public String solveSecondPart(String inputFile) {
         Map<Computer, List<Computer>> connectionMap = getConnectionMap(inputFile);
 
         // The size of the largest set is limited by the max number of connections
@@ -41,13 +42,17 @@ public class Day23 implements Solution {
         int max = connectionMap.values().stream().map(List::size)
                 .max(Comparator.comparingInt(x -> x)).get();
 
-        System.out.println("Maximum possible size of the fully-connected set: %d".formatted(max));
+        if (Utils.VERBOSE) {
+            System.out.println("Maximum possible size of the fully-connected set: %d".formatted(max));
+        }
 
         int[][] adjacencyMatrix = new int[connectionMap.size()][connectionMap.size()];
 
         List<Computer> allComputers = connectionMap.keySet().stream()
                 .sorted(Comparator.comparing(computer -> computer.name)).toList();
-        System.out.println("There are %s distinct computers".formatted(allComputers.size()));
+        if (Utils.VERBOSE) {
+            System.out.println("There are %s distinct computers".formatted(allComputers.size()));
+        }
         Map<Computer, Integer> matrixKeyMap = allComputers.stream()
                 .collect(Collectors.toMap(entry -> entry, allComputers::indexOf));
 
@@ -68,7 +73,9 @@ public class Day23 implements Solution {
 
         List<List<Integer>> completeSubGraphs = new ArrayList<>();
         for (final Computer computer : allComputers) {
-            System.out.println("Processing computer %s. Progress (%d,%d)".formatted(computer, allComputers.indexOf(computer), allComputers.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Processing computer %s. Progress (%d,%d)".formatted(computer, allComputers.indexOf(computer), allComputers.size()));
+            }
             final List<Computer> neighbours = connectionMap.get(computer);
             // We need to consider all subsets of neighbours plus the current computer
             // Note that this is bounded by 2^(max set size) which in case of our puzzle input is
@@ -77,10 +84,14 @@ public class Day23 implements Solution {
                     Stream.of(computer),
                     neighbours.stream()
             ).toList();
-            System.out.println("Subnetwork starting from this computer has size %d".formatted(subNetwork.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Subnetwork starting from this computer has size %d".formatted(subNetwork.size()));
+            }
             final List<List<Integer>> completeSubsets = getCompleteSubsets(subNetwork.stream().map(matrixKeyMap::get).toList(), adjacencyMatrix, new HashSet<>());
             completeSubGraphs.addAll(completeSubsets);
-            System.out.println("Found %d complete subsets".formatted(completeSubsets.size()));
+            if (Utils.VERBOSE) {
+                System.out.println("Found %d complete subsets".formatted(completeSubsets.size()));
+            }
         }
 
         List<List<Integer>> sortedSubGraphs = completeSubGraphs.stream()
@@ -88,14 +99,19 @@ public class Day23 implements Solution {
 
         List<Integer> largestCompleteGraph = sortedSubGraphs.getLast();
 
-        System.out.println(largestCompleteGraph);
+        if (Utils.VERBOSE) {
+            System.out.println(largestCompleteGraph);
+        }
 
         List<Computer> largestCompleteSubNetwork = largestCompleteGraph.stream().map(matrixKeyReverseMap::get).toList();
 
         String password = largestCompleteSubNetwork.stream().sorted(Comparator.comparing(computer -> computer.name)).map(Computer::name).collect(
                 Collectors.joining(","));
 
-        System.out.println("The password is: %s".formatted(password));
+        if (Utils.VERBOSE) {
+            System.out.println("The password is: %s".formatted(password));
+        }
+        return password;
     }
 
     private boolean isComplete(
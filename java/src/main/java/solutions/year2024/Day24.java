@@ -8,9 +8,9 @@ import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day24 implements Solution {
+public class Day24 implements Solution<Long, String> {
     @Override
-    public void firstPart(String inputFile) {
+    public Long solveFirstPart(String inputFile) {
         Pair<Map<String, Wire>, List<Gate>> wireMapAndGates = processInput(Utils.readInputAsStream(
                 inputFile).collect(Collectors.joining("\n")));
 
@@ -23,14 +23,17 @@ public class Day24 implements Solution {
         List<Wire> outputWires = allWires.stream().filter(Wire::isOutput)
                 .sorted(Comparator.comparing(wire -> wire.name)).toList();
 
-        System.out.println("Output wires: ");
-        System.out.println(Utils.toStringLineByLine(outputWires));
+        if (Utils.VERBOSE) {
+            System.out.println("Output wires: ");
+            System.out.println(Utils.toStringLineByLine(outputWires));
+        }
 
         long output = processOutputBits(outputWires);
 
-        System.out.println("Output of the circuit: %d".formatted(output));
-
-
+        if (Utils.VERBOSE) {
+            System.out.println("Output of the circuit: %d".formatted(output));
+        }
+        return output;
     }
 
     private static Set<Wire> runCircuit(List<Gate> gates, Map<String, Wire> wireMap) {
@@ -109,7 +112,9 @@ public class Day24 implements Solution {
     }
 
     private Pair<Map<String, Wire>, List<Gate>> processInput(String input) {
-        System.out.println(input);
+        if (Utils.VERBOSE) {
+            System.out.println(input);
+        }
         String[] wiresAndGates = input.split("\n\n");
 
         List<Wire> wires = wiresAndGates[0].lines().map(Wire::fromString).toList();
@@ -127,7 +132,7 @@ public class Day24 implements Solution {
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public String solveSecondPart(String inputFile) {
 
         Pair<Map<String, Wire>, List<Gate>> wireMapAndGates = processInput(Utils.readInputAsStream(
                 inputFile).collect(Collectors.joining("\n")));
@@ -138,14 +143,18 @@ public class Day24 implements Solution {
         List<Wire> outputWires = getWiresStartingWith(wireMap, "z");
 
 
-        System.out.println();
-        System.out.println(wireMap.keySet().stream().filter(s -> s.startsWith("z")).toList()
-                                   .size());
+        if (Utils.VERBOSE) {
+            System.out.println();
+            System.out.println(wireMap.keySet().stream().filter(s -> s.startsWith("z")).toList()
+                                       .size());
+        }
 
         gates.sort(Gate::compareTo);
         //System.out.println(Utils.toStringLineByLine(gates));
 
-        System.out.println(gates.size());
+        if (Utils.VERBOSE) {
+            System.out.println(gates.size());
+        }
 
 
         // The idea is to walk the wire tree and identify constituent components of the adder
@@ -168,9 +177,11 @@ public class Day24 implements Solution {
         String output = getBitString(outputWires);
 
         String formatString = "%%%ds".formatted(Math.max(xInput.length(), output.length()));
-        System.out.println(formatString.formatted(xInput));
-        System.out.println(formatString.formatted(yInput));
-        System.out.println(output);
+        if (Utils.VERBOSE) {
+            System.out.println(formatString.formatted(xInput));
+            System.out.println(formatString.formatted(yInput));
+            System.out.println(output);
+        }
 
         // validate addition correctness
         int carry = 0;
@@ -192,12 +203,14 @@ public class Day24 implements Solution {
                 carry = 0;
             }
 
-            if (sum != expected) {
+            if (Utils.VERBOSE && sum != expected) {
                 System.out.println("Mismatch found at bit %d (index %d)".formatted(i+1, i));
                 System.out.println("Bit sum: %d, expected: %d".formatted(sum, expected));
             }
         }
-        System.out.println("Carry: %d, final bit of output: %d".formatted(carry, extractBooleanIntValue(outputWires, xInputWires.size())));
+        if (Utils.VERBOSE) {
+            System.out.println("Carry: %d, final bit of output: %d".formatted(carry, extractBooleanIntValue(outputWires, xInputWires.size())));
+        }
 
         // First found the error where z07 should be mapped to rts
         // Second found the error where z12 should be mapped to jpj
@@ -205,7 +218,9 @@ public class Day24 implements Solution {
         // Fourth found the error where kgj should be mapped to z26
         // The last bit is a carry so we cannot validate it in the same way
         for (final Wire outputWire : outputWires.subList(3, outputWires.size() -1)) {
-            System.out.println("Tracing wire %s".formatted(outputWire.name));
+            if (Utils.VERBOSE) {
+                System.out.println("Tracing wire %s".formatted(outputWire.name));
+            }
             traceInputs(outputWire, outputWireToGateMap);
             validateAdderShape(outputWire, outputWireToGateMap);
         }
@@ -214,17 +229,19 @@ public class Day24 implements Solution {
 
         gatesToSwap = gatesToSwap.stream().sorted().toList();
 
-        System.out.println("Final output: %s".formatted(String.join(",", gatesToSwap)));
-
-
+        if (Utils.VERBOSE) {
+            System.out.println("Final output: %s".formatted(String.join(",", gatesToSwap)));
+        }
 
         // we need to narrow down the search space and only find the bits that are wrong.
-
+        return String.join(",", gatesToSwap);
     }
 
     private void validateAdderShape(Wire outputWire, Map<String, Gate> outputWireToGateMap) {
         Gate gate = outputWireToGateMap.get(outputWire.name);
-        System.out.println(gate);
+        if (Utils.VERBOSE) {
+            System.out.println(gate);
+        }
 
         assert gate.operation == Operation.XOR: "The top level operation of the output gate has to be a xor";
 
@@ -254,9 +271,11 @@ public class Day24 implements Solution {
                                           Map<String, Gate> outputWireToGateMap,
                                           Wire outputWire
     ) {
-        System.out.println(gate);
-        System.out.println(outputWire);
-        System.out.println(gate);
+        if (Utils.VERBOSE) {
+            System.out.println(gate);
+            System.out.println(outputWire);
+            System.out.println(gate);
+        }
         Gate leftInputGate = outputWireToGateMap.get(gate.left.name);
         Gate rightInputGate = outputWireToGateMap.get(gate.right.name);
 
@@ -289,12 +308,16 @@ public class Day24 implements Solution {
         Gate rightInputGate = outputWireToGateMap.get(gate.right.name);
 
         if (leftInputGate.operation != Operation.XOR && rightInputGate.operation != Operation.XOR) {
-            System.out.println("None of the input gates is a XOR");
+            if (Utils.VERBOSE) {
+                System.out.println("None of the input gates is a XOR");
+            }
             return false;
         }
 
         if (leftInputGate.operation != Operation.OR && rightInputGate.operation != Operation.OR) {
-            System.out.println("None of the input gates is a OR required for carry bit.");
+            if (Utils.VERBOSE) {
+                System.out.println("None of the input gates is a OR required for carry bit.");
+            }
             return false;
         }
 
@@ -307,23 +330,31 @@ public class Day24 implements Solution {
             Wire outputWire
     ) {
         if (!(gate.left.name.startsWith("x") || gate.left.name.startsWith("y"))) {
-            System.out.println("Left gate doesn't read input bit");
+            if (Utils.VERBOSE) {
+                System.out.println("Left gate doesn't read input bit");
+            }
             return false;
         }
 
         if (!(gate.right.name.startsWith("x") || gate.right.name.startsWith("y"))) {
-            System.out.println("Right gate doesn't read input bit");
+            if (Utils.VERBOSE) {
+                System.out.println("Right gate doesn't read input bit");
+            }
             return false;
         }
 
         int level = Integer.parseInt(outputWire.name.substring(1));
         if (Integer.parseInt(gate.left.name.substring(1)) != level -1) {
-            System.out.println("Left gate input bit has incorrect level");
+            if (Utils.VERBOSE) {
+                System.out.println("Left gate input bit has incorrect level");
+            }
             return false;
         }
 
         if (Integer.parseInt(gate.right.name.substring(1)) != level -1) {
-            System.out.println("Right gate input bit has incorrect level");
+            if (Utils.VERBOSE) {
+                System.out.println("Right gate input bit has incorrect level");
+            }
             return false;
         }
         return true;
@@ -350,7 +381,9 @@ public class Day24 implements Solution {
     private void traceInputs(Wire outputWire, Map<String, Gate> outputWireToGateMap) {
         if (outputWireToGateMap.containsKey(outputWire.name)) {
             Gate gate = outputWireToGateMap.get(outputWire.name);
-            System.out.println(gate);
+            if (Utils.VERBOSE) {
+                System.out.println(gate);
+            }
             traceInputs(gate.left, outputWireToGateMap);
             traceInputs(gate.right, outputWireToGateMap);
         }
@@ -9,20 +9,24 @@ import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day25 implements Solution {
+public class Day25 implements Solution<Integer, Void> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
         final List<LockPart> locksAndKeys = readInput(inputFile);
 
         final List<LockPart> locks = locksAndKeys.stream().filter(Predicate.not(LockPart::isKey))
                 .toList();
         final List<LockPart> keys = locksAndKeys.stream().filter(LockPart::isKey).toList();
 
-        System.out.printf("There are %d locks.%n", locks.size());
-        System.out.printf("There are %d keys.%n", keys.size());
+        if (Utils.VERBOSE) {
+            System.out.printf("There are %d locks.%n", locks.size());
+            System.out.printf("There are %d keys.%n", keys.size());
+        }
 
-        System.out.println(locks);
-        System.out.println(keys);
+        if (Utils.VERBOSE) {
+            System.out.println(locks);
+            System.out.println(keys);
+        }
 
         int matchingPairs = 0;
         for (final var lock : locks) {
@@ -33,7 +37,10 @@ public class Day25 implements Solution {
             }
         }
 
-        System.out.println("There are %d unique lock-key matching pairs.".formatted(matchingPairs));
+        if (Utils.VERBOSE) {
+            System.out.println("There are %d unique lock-key matching pairs.".formatted(matchingPairs));
+        }
+        return matchingPairs;
     }
 
     private List<LockPart> readInput(String inputFile) {
@@ -42,8 +49,9 @@ public class Day25 implements Solution {
     }
 
     @Override
-    public void secondPart(String inputFile) {
-
+    public Void solveSecondPart(String inputFile) {
+        // There is no puzzle for the second part of the last day.
+        return null;
     }
 
     private record LockPart(List<Integer> heights, boolean isKey) {
@@ -109,11 +117,13 @@ public class Day25 implements Solution {
 
             for (int i = 0; i < LOCK_WIDTH; i++) {
                 if (lock.heights.get(i) + key.heights.get(i) >= LOCK_HEIGHT - 1) {
-                    System.out.println("Overlap detected in %d column. %s %s".formatted(
-                            i + 1,
-                            lock,
-                            key
-                    ));
+                    if (Utils.VERBOSE) {
+                        System.out.println("Overlap detected in %d column. %s %s".formatted(
+                                i + 1,
+                                lock,
+                                key
+                        ));
+                    }
                     return false;
                 }
             }
@@ -4,349 +4,297 @@ import lombok.extern.java.Log;
 import solutions.Solution;
 import solutions.Utils;
 
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Log
-public class Day3 implements Solution {
-    @Override
-    public void firstPart(String inputFile) {
-
-        List<String> inputLines = Utils.readInputAsStream(inputFile).toList();
-        final var state = initializeParsingState(inputLines);
-
-        // this design is bad.
-        List<Token> tokensAvailable = List.of(new Mul(),
-                                            new RightParen(),
-                                            new LeftParen(),
-                                            new Comma(),
-                                            new ShortNumber(0),
-                                            new Bad());
+public class Day3 implements Solution<Long, Long> {
+    private static final boolean PARALLEL_SCAN = Boolean.parseBoolean(System.getenv("PARALLEL_SCAN"));
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 23;
 
-        List<Token> parsedTokens = parseTokens(state, tokensAvailable);
-
-        int mulPatternLength = 6;
-        int output = 0;
-        for (int i = 0; i < parsedTokens.size() + 1 - mulPatternLength; ) {
-            if (multiplicationFound(parsedTokens, i)) {
-                int firstArgument = ((ShortNumber) parsedTokens.get(i + 2)).value;
-                int secondArgument = ((ShortNumber) parsedTokens.get(i + 4)).value;
-                output += firstArgument * secondArgument;
-                i += mulPatternLength;
-                continue;
-            }
-            i += 1;
+    @Override
+    public Long solveFirstPart(String inputFile) {
+        long output;
+        if (PARALLEL_SCAN) {
+            output = scanChunksInParallel(inputFile).stream().mapToLong(MemoryScanner::sum).sum();
+        } else {
+            output = scanProgramMemory(inputFile).sum();
         }
-        log.info("Output: %d".formatted(output));
+        if (Utils.VERBOSE) {
+            log.info("Output: %d".formatted(output));
+        }
+        return output;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-
-        List<String> inputLines = Utils.readInputAsStream(inputFile).toList();
-        final var state = initializeParsingState(inputLines);
-
-        // this design is bad.
-        List<Token> tokensAvailable = List.of(new Mul(),
-                                              new RightParen(),
-                                              new LeftParen(),
-                                              new Comma(),
-                                              new ShortNumber(0),
-                                              new DoNot(),
-                                              new Do(),
-                                              new Bad());
-
-        List<Token> parsedTokens = parseTokens(state, tokensAvailable);
-
-        int mulPatternLength = 6;
-        int doDoNotPatternLength = 3;
-        int output = 0;
-        boolean areMultiplicationsEnabled = true;
-        for (int i = 0; i < parsedTokens.size() + 1 - mulPatternLength; ) {
-            if (multiplicationFound(parsedTokens, i)) {
-                int firstArgument = ((ShortNumber) parsedTokens.get(i + 2)).value;
-                int secondArgument = ((ShortNumber) parsedTokens.get(i + 4)).value;
-                if (areMultiplicationsEnabled) {
-                    output += firstArgument * secondArgument;
-                }
-                i += mulPatternLength;
-                continue;
-            } else if (doFound(parsedTokens, i)) {
-                areMultiplicationsEnabled = true;
-                i += doDoNotPatternLength;
-                continue;
-            } else if (doNotFound(parsedTokens, i)) {
-                areMultiplicationsEnabled = false;
-                i += doDoNotPatternLength;
-                continue;
+    public Long solveSecondPart(String inputFile) {
+        long output;
+        if (PARALLEL_SCAN) {
+            // The chunks don't know whether multiplications are enabled at their start,
+            // that is resolved by going through them in order and passing on the state
+            // at the end of each of them.
+            output = 0;
+            boolean enabled = true;
+            for (MemoryScanner chunk : scanChunksInParallel(inputFile)) {
+                output += chunk.enabledSum(enabled);
+                enabled = chunk.isEnabledAtEnd(enabled);
             }
-            i += 1;
+        } else {
+            output = scanProgramMemory(inputFile).enabledSum(true);
         }
-        log.info("Output: %d".formatted(output));
-    }
-
-
-    private static boolean multiplicationFound(List<Token> parsedTokens, int index) {
-        return parsedTokens.get(index) instanceof Mul
-        && parsedTokens.get(index + 1) instanceof LeftParen
-        && parsedTokens.get(index + 2) instanceof ShortNumber
-        && parsedTokens.get(index + 3) instanceof Comma
-        && parsedTokens.get(index + 4) instanceof ShortNumber
-        && parsedTokens.get(index + 5) instanceof RightParen;
-    }
-
-    private boolean doNotFound(List<Token> parsedTokens, int index) {
-        return parsedTokens.get(index) instanceof DoNot
-               && parsedTokens.get(index + 1) instanceof LeftParen
-               && parsedTokens.get(index + 2) instanceof RightParen;
-    }
-
-    private boolean doFound(List<Token> parsedTokens, int index) {
-        return parsedTokens.get(index) instanceof Do
-               && parsedTokens.get(index + 1) instanceof LeftParen
-               && parsedTokens.get(index + 2) instanceof RightParen;
+        if (Utils.VERBOSE) {
+            log.info("Output: %d".formatted(output));
+        }
+        return output;
     }
 
-    private static List<Token> parseTokens(ParsingState state, List<Token> tokensToParse) {
-        List<Token> parsedTokens = new ArrayList<>();
-        while (!state.noMoreToParse()) {
-            for (Token tokenType : tokensToParse) {
-                final var maybeToken = tokenType.tryToParse(state);
-                if (maybeToken.isPresent()) {
-                    parsedTokens.add(maybeToken.get());
-                    break;
+    /**
+     * Streams the program memory through the scanner in fixed size blocks, so the memory
+     * used doesn't depend on the size of the input.
+     */
+    private static MemoryScanner scanProgramMemory(String inputFile) {
+        MemoryScanner scanner = new MemoryScanner();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(Path.of(inputFile))) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    scanner.accept(buffer[i]);
                 }
             }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        String programMemoryAfterParsing = parsedTokens.stream()
-                .map(Objects::toString)
-                .collect(Collectors.joining(""));
-        log.info("Program memory after parsing: \n%s\n".formatted(programMemoryAfterParsing));
-        return parsedTokens;
-    }
-
-
-    private static ParsingState initializeParsingState(List<String> inputLines) {
-        assert (inputLines.size() == 1) :
-                "Program memory input for this puzzle should be a " + "single long line.";
-        String programMemory = String.join("", inputLines);
-        log.info("Read program memory: \n" + programMemory);
-
-        List<Character> programMemoryChars = new ArrayList<>();
-        for (byte c : programMemory.getBytes(StandardCharsets.UTF_8)) {
-            programMemoryChars.add((char) c);
+        if (Utils.VERBOSE) {
+            log.info("Multiplications found: %d".formatted(scanner.multiplications()));
         }
-
-        return new ParsingState(programMemoryChars, 0);
+        return scanner;
     }
 
-
     /**
-     * Record maintaining information about the current state of parsing the
-     * program memory. The idea is that while parsing we use functions that output
-     * tokens and shift the index in the parsing state to avoid
-     * copying / modifying the parsed list.
+     * Splits the program memory into chunks that are mapped into memory and scanned in
+     * parallel. Each instruction is evaluated by the chunk in which it starts, so a chunk
+     * continues past its end until the instruction in progress is either completed or
+     * broken off. The instructions are short, so this never needs more than a few bytes
+     * of the next chunk.
+     *
+     * @return The scanners of the chunks in the order of the chunks.
      */
-    static final class ParsingState {
-        private final List<Character> programMemory;
-        public int index;
-
-        /**
-         * @param programMemory Program memory that we are trying to parse.
-         * @param index         Current index at which we are parsing.
-         */
-        ParsingState(List<Character> programMemory, int index) {
-            this.programMemory = programMemory;
-            this.index = index;
-        }
-
-        public String getPrefix(int prefixLength) {
-            assert (programMemory.size() >= prefixLength) :
-                    "String needs to be at least of the " + "size of the requested prefix";
-            return programMemory.subList(index, index + prefixLength)
-                    .stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(""));
-
-        }
-
-        public boolean noMoreToParse() {
-            return index >= programMemory.size();
-        }
-
-        public char peekNext() {
-            assert (index <= programMemory.size()) :
-                    "The index needs to be within the program memory";
-            return programMemory.get(index);
-        }
-
-        public char popShift() {
-            assert (index <= programMemory.size()) :
-                    "The index needs to be within the program memory";
-            return programMemory.get(index++);
-        }
-
-        public int charsLeft() {
-            return programMemory.size() - (index + 1);
-        }
-    }
-
-    private sealed interface Token
-            permits Mul, LeftParen, RightParen, Comma, ShortNumber, Bad, Do, DoNot {
-        Optional<Token> tryToParse(ParsingState state);
-    }
-
-    private static final class Mul implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.charsLeft() >= 3 && state.getPrefix(3).equals("mul")) {
-                state.index += 3;
-                return Optional.of(new Mul());
+    private static List<MemoryScanner> scanChunksInParallel(String inputFile) {
+        try (FileChannel channel = FileChannel.open(Path.of(inputFile), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            List<MemoryScanner> chunks = IntStream.range(0, chunkCount)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        long start = (long) chunk * CHUNK_SIZE;
+                        long end = Math.min(size, start + CHUNK_SIZE);
+                        long mappedEnd = Math.min(size, end + MemoryScanner.MAX_INSTRUCTION_LENGTH - 1);
+                        return scanChunk(channel, start, (int) (end - start), (int) (mappedEnd - start));
+                    })
+                    .toList();
+            if (Utils.VERBOSE) {
+                log.info("Multiplications found in %d chunks: %d".formatted(
+                        chunkCount,
+                        chunks.stream().mapToLong(MemoryScanner::multiplications).sum()));
             }
-
-            return Optional.empty();
-        }
-
-        @Override
-        public String toString() {
-            return "mul";
+            return chunks;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
-
-    private static final class LeftParen implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.getPrefix(1).equals("(")) {
-                state.index += 1;
-                return Optional.of(new LeftParen());
-            }
-            return Optional.empty();
-        }
-
-        @Override
-        public String toString() {
-            return "(";
+    private static MemoryScanner scanChunk(FileChannel channel, long start, int length, int mappedLength) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mappedLength);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-    }
-
-    private static final class RightParen implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.getPrefix(1).equals(")")) {
-                state.index += 1;
-                return Optional.of(new RightParen());
-            }
-            return Optional.empty();
+        MemoryScanner scanner = new MemoryScanner();
+        for (int i = 0; i < length; i++) {
+            scanner.accept(buffer.get(i));
         }
-
-        @Override
-        public String toString() {
-            return ")";
+        // Finish the instruction that started in this chunk, if there is any.
+        int i = length;
+        while (i < mappedLength && scanner.continueInstruction(buffer.get(i))) {
+            i++;
         }
+        return scanner;
     }
 
-    private static final class Comma implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.getPrefix(1).equals(",")) {
-                state.index += 1;
-                return Optional.of(new Comma());
-            }
-            return Optional.empty();
-        }
-
-        @Override
-        public String toString() {
-            return ",";
+    /**
+     * State machine recognising the instructions {@code mul(X,Y)}, {@code do()} and
+     * {@code don't()} in the corrupted program memory, where X and Y are numbers with one
+     * to three digits. The instructions are evaluated as soon as their last byte is
+     * accepted, so nothing is buffered.
+     * <p>
+     * The scanner doesn't need to know whether multiplications are enabled when it
+     * starts. Until the first {@code do()} or {@code don't()} the results are summed up
+     * separately, so that the scanners of consecutive chunks of the memory can be
+     * combined once the state at the start of each chunk is known.
+     * <p>
+     * Each state stands for the prefix of an instruction matched so far. None of the
+     * instructions contains its own first letter after the start, so when a byte doesn't
+     * extend the prefix, the only possible new match begins at that byte itself.
+     */
+    static final class MemoryScanner {
+        private static final int START = 0;
+        private static final int M = 1;
+        private static final int MU = 2;
+        private static final int MUL = 3;
+        private static final int FIRST_ARGUMENT = 4;
+        private static final int SECOND_ARGUMENT = 5;
+        private static final int D = 6;
+        private static final int DO = 7;
+        private static final int DO_OPEN = 8;
+        private static final int DON = 9;
+        private static final int DON_APOSTROPHE = 10;
+        private static final int DONT = 11;
+        private static final int DONT_OPEN = 12;
+        private static final int MAX_DIGITS = 3;
+        static final int MAX_INSTRUCTION_LENGTH = "mul(123,456)".length();
+
+        private int state = START;
+        private int firstArgument;
+        private int secondArgument;
+        private int digits;
+        private boolean toggled;
+        private boolean enabled;
+        private long sum;
+        private long leadingSum;
+        private long toggledSum;
+        private long multiplications;
+
+        void accept(byte c) {
+            state = switch (state) {
+                case M -> c == 'u' ? MU : start(c);
+                case MU -> c == 'l' ? MUL : start(c);
+                case MUL -> {
+                    if (c != '(') {
+                        yield start(c);
+                    }
+                    firstArgument = 0;
+                    digits = 0;
+                    yield FIRST_ARGUMENT;
+                }
+                case FIRST_ARGUMENT -> {
+                    if (isDigit(c) && digits < MAX_DIGITS) {
+                        firstArgument = 10 * firstArgument + (c - '0');
+                        digits++;
+                        yield FIRST_ARGUMENT;
+                    }
+                    if (c != ',' || digits == 0) {
+                        yield start(c);
+                    }
+                    secondArgument = 0;
+                    digits = 0;
+                    yield SECOND_ARGUMENT;
+                }
+                case SECOND_ARGUMENT -> {
+                    if (isDigit(c) && digits < MAX_DIGITS) {
+                        secondArgument = 10 * secondArgument + (c - '0');
+                        digits++;
+                        yield SECOND_ARGUMENT;
+                    }
+                    if (c != ')' || digits == 0) {
+                        yield start(c);
+                    }
+                    multiply();
+                    yield START;
+                }
+                case D -> c == 'o' ? DO : start(c);
+                case DO -> c == '(' ? DO_OPEN : c == 'n' ? DON : start(c);
+                case DO_OPEN -> {
+                    if (c != ')') {
+                        yield start(c);
+                    }
+                    toggled = true;
+                    enabled = true;
+                    yield START;
+                }
+                case DON -> c == '\'' ? DON_APOSTROPHE : start(c);
+                case DON_APOSTROPHE -> c == 't' ? DONT : start(c);
+                case DONT -> c == '(' ? DONT_OPEN : start(c);
+                case DONT_OPEN -> {
+                    if (c != ')') {
+                        yield start(c);
+                    }
+                    toggled = true;
+                    enabled = false;
+                    yield START;
+                }
+                default -> start(c);
+            };
         }
-    }
 
-    private static final class Bad implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.noMoreToParse()) {
-                return Optional.empty();
+        /**
+         * Accepts a byte following the end of a chunk.
+         *
+         * @return true if an instruction that started before the byte is still in progress.
+         */
+        boolean continueInstruction(byte c) {
+            if (state == START) {
+                return false;
             }
-            state.index += 1;
-            return Optional.of(new Bad());
+            accept(c);
+            // Entering the first state of an instruction means that the byte started a
+            // new one instead of continuing the previous one.
+            return state != START && state != M && state != D;
         }
 
-        @Override
-        public String toString() {
-            return "#";
+        private static int start(byte c) {
+            return switch (c) {
+                case 'm' -> M;
+                case 'd' -> D;
+                default -> START;
+            };
         }
-    }
-
-    private static final class ShortNumber implements Token {
-        final int value;
 
-        private ShortNumber(int value) {
-            this.value = value;
+        private static boolean isDigit(byte c) {
+            return '0' <= c && c <= '9';
         }
 
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            List<Character> numberDigits = new ArrayList<>();
-            while (state.charsLeft() >= 1 && numberDigits.size() < 3) {
-                char next = state.peekNext();
-                if (!Character.isDigit(next)) {
-                    break;
-                }
-                numberDigits.add(state.popShift());
-            }
-
-            if (numberDigits.isEmpty()) {
-                return Optional.empty();
+        private void multiply() {
+            long product = (long) firstArgument * secondArgument;
+            sum += product;
+            if (!toggled) {
+                leadingSum += product;
+            } else if (enabled) {
+                toggledSum += product;
             }
-
-            return Optional.of(new ShortNumber(Integer.parseInt(numberDigits.stream()
-                                                                        .map(String::valueOf)
-                                                                        .collect(Collectors.joining(
-                                                                                "")))));
-        }
-
-        @Override
-        public String toString() {
-            return String.valueOf(value);
+            multiplications++;
         }
-    }
-
-    private static final class Do implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.charsLeft() >= 2 && state.getPrefix(2).equals("do")) {
-                state.index += 2;
-                return Optional.of(new Do());
-            }
 
-            return Optional.empty();
+        /**
+         * @return Sum of the results of all multiplications.
+         */
+        long sum() {
+            return sum;
         }
 
-        @Override
-        public String toString() {
-            return "do";
+        /**
+         * @return Sum of the results of the multiplications that weren't disabled by a
+         * preceding {@code don't()}.
+         */
+        long enabledSum(boolean enabledAtStart) {
+            return enabledAtStart ? leadingSum + toggledSum : toggledSum;
         }
-    }
-
-    private static final class DoNot implements Token {
-        @Override
-        public Optional<Token> tryToParse(ParsingState state) {
-            if (state.charsLeft() >= 5 && state.getPrefix(5).equals("don't")) {
-                state.index += 5;
-                return Optional.of(new DoNot());
-            }
 
-            return Optional.empty();
+        boolean isEnabledAtEnd(boolean enabledAtStart) {
+            return toggled ? enabled : enabledAtStart;
         }
 
-        @Override
-        public String toString() {
-            return "don't";
+        long multiplications() {
+            return multiplications;
         }
     }
 }
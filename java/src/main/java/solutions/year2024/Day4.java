@@ -1,58 +1,73 @@
 package solutions.year2024;
 
-import lombok.AllArgsConstructor;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
-public class Day4 implements Solution {
+public class Day4 implements Solution<Long, Long> {
     @Override
-    public void firstPart(String inputFile) {
-        char[][] wordSearch = getWordSearch(inputFile);
+    public Long solveFirstPart(String inputFile) {
+        MappedInput input = Utils.mapInput(inputFile);
+        LetterBitRows wordSearch = LetterBitRows.parse(input, "XMAS");
 
-        System.out.println(stringifyMatrix(wordSearch));
+        if (Utils.VERBOSE) {
+            System.out.println(input);
+        }
 
         final List<PatternMask> masks = generateAllOrientationPatterns("XMAS").stream()
                 .map(PatternMask::fromCharMatrix)
                 .toList();
 
-        countMaskMatches(masks, wordSearch);
+        return countMaskMatches(masks, wordSearch);
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        char[][] wordSearch = getWordSearch(inputFile);
+    public Long solveSecondPart(String inputFile) {
+        MappedInput input = Utils.mapInput(inputFile);
+        LetterBitRows wordSearch = LetterBitRows.parse(input, "MAS");
 
-        System.out.println(stringifyMatrix(wordSearch));
+        if (Utils.VERBOSE) {
+            System.out.println(input);
+        }
 
         final List<PatternMask> masks = generateAllXOrientationPatterns("MAS").stream()
                 .map(PatternMask::fromCharMatrix)
                 .toList();
 
-        countMaskMatches(masks, wordSearch);
+        return countMaskMatches(masks, wordSearch);
     }
 
 
-    private static void countMaskMatches(List<PatternMask> masks, char[][] wordSearch) {
-        for (PatternMask mask : masks) {
-            System.out.println(mask);
+    /**
+     * The rows of the word search are independent of each other, so they are matched in
+     * parallel. Within a row all positions are matched at once, see
+     * {@link LetterBitRows#countMatchesInRow}.
+     */
+    private static long countMaskMatches(List<PatternMask> masks, LetterBitRows wordSearch) {
+        if (Utils.VERBOSE) {
+            for (PatternMask mask : masks) {
+                System.out.println(mask);
+            }
         }
 
-        long output = 0;
-        for (int y = 0; y < wordSearch.length; y++) {
-            for (int x = 0; x < wordSearch[0].length; x++) {
-                // We need to make the indices effectively final
-                // by putting them into temp variables.
-                final int x_capture = x;
-                final int y_capture = y;
-                output += masks.stream()
-                        .filter(mask -> mask.matchesWordSearchAt(x_capture, y_capture, wordSearch))
-                        .count();
-            }
+        long output = IntStream.range(0, wordSearch.height())
+                .parallel()
+                .mapToLong(y -> {
+                    long matches = 0;
+                    for (PatternMask mask : masks) {
+                        matches += wordSearch.countMatchesInRow(mask, y);
+                    }
+                    return matches;
+                })
+                .sum();
+        if (Utils.VERBOSE) {
+            System.out.printf("Number of matches: %d\n", output);
         }
-        System.out.printf("Number of matches: %d\n", output);
+        return output;
     }
 
     private static List<char[][]> generateAllOrientationPatterns(String input) {
@@ -140,45 +155,160 @@ public class Day4 implements Solution {
                        south);
     }
 
-    @AllArgsConstructor
     private static class PatternMask {
-        int width;
-        int height;
-        char[][] pattern;
+        final int width;
+        final int height;
+        final char[][] pattern;
+        // Positions and letters of the cells that aren't wildcards.
+        final int[] letterX;
+        final int[] letterY;
+        final char[] letters;
+
+        private PatternMask(char[][] pattern) {
+            this.width = pattern[0].length;
+            this.height = pattern.length;
+            this.pattern = pattern;
+            int letterCount = 0;
+            for (char[] row : pattern) {
+                for (char c : row) {
+                    if (c != '*') {
+                        letterCount++;
+                    }
+                }
+            }
+            this.letterX = new int[letterCount];
+            this.letterY = new int[letterCount];
+            this.letters = new char[letterCount];
+            int i = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (pattern[y][x] != '*') {
+                        letterX[i] = x;
+                        letterY[i] = y;
+                        letters[i++] = pattern[y][x];
+                    }
+                }
+            }
+        }
 
         public static PatternMask fromCharMatrix(char[][] matrix) {
             assert matrix.length > 0 : "The input matrix has to be non-empty";
             assert Arrays.stream(matrix).allMatch(row -> row.length == matrix[0].length) :
                     "The input matrix has to be rectangular.";
 
-            return new PatternMask(matrix[0].length, matrix.length, matrix);
-
+            return new PatternMask(matrix);
         }
 
-        public boolean matchesWordSearchAt(int x, int y, char[][] wordSearch) {
-            if (wordSearch.length < y + height) {
-                // The pattern does not fit vertically.
-                return false;
-            }
+        @Override
+        public String toString() {
+            return stringifyMatrix(pattern);
+        }
+    }
 
-            if (wordSearch.length == 0 || wordSearch[0].length < x + width) {
-                // The pattern does not fit horizontally.
-                return false;
+    /**
+     * The word search stored as one bitmask per letter and row, where bit x of the mask
+     * of a letter is set if the letter is at column x. The masks of a row are split into
+     * longs, which are stored in a flat array.
+     * <p>
+     * A pattern matches at column x if for each of its letters, the mask of that letter
+     * in the corresponding row has the bit x + dx set. Shifting the masks right by dx
+     * lines up those bits for all columns at once, so a row is matched against a pattern
+     * by ANDing a few shifted words together and counting the bits that are left.
+     */
+    private static final class LetterBitRows {
+        private final int width;
+        private final int height;
+        private final int words;
+        // Index of each letter of the alphabet, -1 for the letters that aren't tracked.
+        private final int[] letterIndex = new int[128];
+        private final long[] bits;
+
+        private LetterBitRows(int width, int height, String alphabet) {
+            this.width = width;
+            this.height = height;
+            this.words = (width + Long.SIZE - 1) / Long.SIZE;
+            Arrays.fill(letterIndex, -1);
+            for (int i = 0; i < alphabet.length(); i++) {
+                letterIndex[alphabet.charAt(i)] = i;
             }
+            this.bits = new long[alphabet.length() * height * words];
+        }
 
-            for (int j = 0; j < height; j++) {
-                for (int i = 0; i < width; i++) {
-                    if (pattern[j][i] != '*' && pattern[j][i] != wordSearch[y + j][x + i]) {
-                        return false;
+        /**
+         * @param alphabet Letters that the patterns are made of, all other letters in the
+         *                 word search can't be part of a match and are skipped.
+         */
+        static LetterBitRows parse(MappedInput input, String alphabet) {
+            MappedInput.LineCursor line = input.lines();
+            boolean hasRows = line.next();
+            assert hasRows :
+                    "The word search needs to be rectangular and needs to have at least one row.";
+            LetterBitRows wordSearch = new LetterBitRows(line.length(), input.lineCount(), alphabet);
+            do {
+                assert line.length() == wordSearch.width : "The word search needs to be rectangular.";
+                for (int x = 0; x < line.length(); x++) {
+                    char c = line.charAt(x);
+                    int letter = c < 128 ? wordSearch.letterIndex[c] : -1;
+                    if (letter >= 0) {
+                        wordSearch.bits[wordSearch.offset(letter, line.index()) + x / Long.SIZE] |=
+                                1L << x;
                     }
                 }
+            } while (line.next());
+            return wordSearch;
+        }
+
+        int height() {
+            return height;
+        }
+
+        private int offset(int letter, int y) {
+            return (letter * height + y) * words;
+        }
+
+        /**
+         * @return Number of columns at which the pattern matches with its top row in row y.
+         */
+        long countMatchesInRow(PatternMask mask, int y) {
+            assert mask.width <= Long.SIZE : "Patterns can be at most 64 columns wide.";
+            int maxX = width - mask.width;
+            if (y + mask.height > height || maxX < 0) {
+                return 0;
+            }
+            long matches = 0;
+            for (int w = 0; w < words; w++) {
+                long candidates = columnsUpTo(maxX, w);
+                for (int i = 0; i < mask.letters.length && candidates != 0; i++) {
+                    int letter = letterIndex[mask.letters[i]];
+                    assert letter >= 0 : "Pattern letters need to be part of the alphabet.";
+                    candidates &= shiftedWord(offset(letter, y + mask.letterY[i]), w, mask.letterX[i]);
+                }
+                matches += Long.bitCount(candidates);
             }
-            return true;
+            return matches;
         }
 
-        @Override
-        public String toString() {
-            return stringifyMatrix(pattern);
+        /**
+         * @return Word w of the row starting at the given offset shifted right by the given
+         * number of bits, with the low bits of the next word shifted in at the top.
+         */
+        private long shiftedWord(int rowOffset, int w, int shift) {
+            long word = bits[rowOffset + w] >>> shift;
+            if (shift > 0 && w + 1 < words) {
+                word |= bits[rowOffset + w + 1] << (Long.SIZE - shift);
+            }
+            return word;
+        }
+
+        /**
+         * @return Bits of word w for the columns from 0 to maxX inclusive.
+         */
+        private static long columnsUpTo(int maxX, int w) {
+            int bitsInWord = maxX - w * Long.SIZE + 1;
+            if (bitsInWord <= 0) {
+                return 0;
+            }
+            return bitsInWord >= Long.SIZE ? -1L : (1L << bitsInWord) - 1;
         }
     }
 
@@ -193,19 +323,5 @@ public class Day4 implements Solution {
         return sb.toString();
     }
 
-    private static char[][] getWordSearch(String inputFile) {
-        List<String> rawInput = Utils.readInputAsStream(inputFile).toList();
-
-        assert !rawInput.isEmpty() :
-                "The word search needs to be rectangular and needs to have at least one row.";
-        char[][] wordSearch = new char[rawInput.size()][rawInput.getFirst().length()];
-
-        for (int i = 0; i < rawInput.size(); i++) {
-            for (int j = 0; j < rawInput.getFirst().length(); j++) {
-                wordSearch[i][j] = rawInput.get(i).charAt(j);
-            }
-        }
-        return wordSearch;
-    }
 
 }
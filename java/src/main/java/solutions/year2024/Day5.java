@@ -1,107 +1,102 @@
 package solutions.year2024;
 
 import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
-public class Day5 implements Solution {
+public class Day5 implements Solution<Integer, Integer> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
 
-        final var rulesAndUpdates = parseInput(Utils.readInputAsStream(inputFile));
+        final var rulesAndUpdates = parseInput(Utils.mapInput(inputFile));
 
         final List<OrderingRule> rules = rulesAndUpdates.getLeft();
         final List<Update> updates = rulesAndUpdates.getRight();
 
-        System.out.printf("Rules:\n%s\n", Utils.toStringLineByLine(rules));
-        System.out.printf("Updates:\n%s\n", Utils.toStringLineByLine(updates));
+        if (Utils.VERBOSE) {
+            System.out.printf("Rules:\n%s\n", Utils.toStringLineByLine(rules));
+            System.out.printf("Updates:\n%s\n", Utils.toStringLineByLine(updates));
+        }
 
-        // For each page number find all updates that need to precede it
-        final Map<Integer, List<Integer>> happensBeforeMap = getUpdateRulesMap(rules);
+        final RuleIndex ruleIndex = new RuleIndex(rules);
 
-        for (final var entry : happensBeforeMap.entrySet()) {
-            System.out.println("%s -> %s".formatted(entry.getKey(), entry.getValue()));
+        if (Utils.VERBOSE) {
+            System.out.println(ruleIndex);
         }
 
         final List<Update> validUpdates = updates.stream()
-                .filter(update -> update.isValidUpdate(happensBeforeMap))
+                .filter(update -> update.isValidUpdate(ruleIndex))
                 .toList();
 
-        System.out.printf("Valid updates:\n%s\n", Utils.toStringLineByLine(updates));
+        if (Utils.VERBOSE) {
+            System.out.printf("Valid updates:\n%s\n", Utils.toStringLineByLine(validUpdates));
+        }
 
         final int middlePageNumberSum = validUpdates.stream()
-                .map(Update::getMiddlePageNumber)
-                .reduce(Integer::sum)
-                .get();
-        System.out.printf("Sum of middle page numbers for valid updates: %s\n",
-                          middlePageNumberSum);
+                .mapToInt(Update::getMiddlePageNumber)
+                .sum();
+        if (Utils.VERBOSE) {
+            System.out.printf("Sum of middle page numbers for valid updates: %s\n",
+                              middlePageNumberSum);
+        }
+        return middlePageNumberSum;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        final var rulesAndUpdates = parseInput(Utils.readInputAsStream(inputFile));
+    public Integer solveSecondPart(String inputFile) {
+        final var rulesAndUpdates = parseInput(Utils.mapInput(inputFile));
 
         final List<OrderingRule> rules = rulesAndUpdates.getLeft();
         final List<Update> updates = rulesAndUpdates.getRight();
 
-        System.out.printf("Rules:\n%s\n", Utils.toStringLineByLine(rules));
-        System.out.printf("Updates:\n%s\n", Utils.toStringLineByLine(updates));
+        if (Utils.VERBOSE) {
+            System.out.printf("Rules:\n%s\n", Utils.toStringLineByLine(rules));
+            System.out.printf("Updates:\n%s\n", Utils.toStringLineByLine(updates));
+        }
 
-        // For each page number find all updates that need to precede it
-        final Map<Integer, List<Integer>> happensBeforeMap = getUpdateRulesMap(rules);
+        final RuleIndex ruleIndex = new RuleIndex(rules);
 
         final List<Update> invalidUpdates = updates.stream()
-                .filter(update -> !update.isValidUpdate(happensBeforeMap))
+                .filter(update -> !update.isValidUpdate(ruleIndex))
                 .toList();
 
-        System.out.printf("Invalid updates:\n%s\n", Utils.toStringLineByLine(updates));
+        if (Utils.VERBOSE) {
+            System.out.printf("Invalid updates:\n%s\n", Utils.toStringLineByLine(invalidUpdates));
+        }
 
         final var reorderedInvalidUpdates = invalidUpdates.stream()
-                .map(update -> update.reorderAccordingTo(rules))
+                .map(update -> update.reorderAccordingTo(ruleIndex))
                 .toList();
 
         final int middlePageNumberSum = reorderedInvalidUpdates.stream()
-                .map(Update::getMiddlePageNumber)
-                .reduce(Integer::sum)
-                .get();
-        System.out.printf("Sum of middle page numbers for invalid updates after reordering: %s\n",
-                          middlePageNumberSum);
-
-    }
-
-    private static Map<Integer, List<Integer>> getUpdateRulesMap(List<OrderingRule> rules) {
-        final Map<Integer, List<Integer>> happensBeforeMap = rules.stream()
-                .map(OrderingRule::happensAfter)
-                .collect(Collectors.toSet())
-                .stream()
-                .map(val -> Map.entry(val,
-                                      rules.stream()
-                                              .filter(rule -> rule.happensAfter == val)
-                                              .map(OrderingRule::happensBefore)
-                                              .toList()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return happensBeforeMap;
+                .mapToInt(Update::getMiddlePageNumber)
+                .sum();
+        if (Utils.VERBOSE) {
+            System.out.printf("Sum of middle page numbers for invalid updates after reordering: %s\n",
+                              middlePageNumberSum);
+        }
+        return middlePageNumberSum;
     }
 
-
-    private Pair<List<OrderingRule>, List<Update>> parseInput(Stream<String> input) {
+    private Pair<List<OrderingRule>, List<Update>> parseInput(MappedInput input) {
         List<OrderingRule> rules = new ArrayList<>();
         List<Update> updates = new ArrayList<>();
 
-        // As we process the input lines stream, this controls
+        // As we process the input lines, this controls
         // whether we are still parsing the rules section or the
         // updates section.
         boolean currentlyParsingRules = true;
 
-        for (String line : input.toList()) {
-            if (line.isBlank()) {
+        MappedInput.LineCursor line = input.lines();
+        while (line.next()) {
+            if (line.isEmpty()) {
                 currentlyParsingRules = false;
                 continue;
             }
@@ -114,66 +109,171 @@ public class Day5 implements Solution {
         return Pair.of(rules, updates);
     }
 
-    private Update parseUpdate(String line) {
-        return new Update(Arrays.stream(line.split(",")).map(Integer::parseInt).toList());
+    private Update parseUpdate(MappedInput.LineCursor line) {
+        int[] pages = new int[line.length() / 2 + 1];
+        int pageCount = 0;
+        MappedInput.FieldCursor field = line.fields(',');
+        while (field.next()) {
+            pages[pageCount++] = field.parseInt();
+        }
+        return new Update(Arrays.copyOf(pages, pageCount));
     }
 
-    private OrderingRule parseRule(String line) {
-        List<Integer> orderingConfig = Arrays.stream(line.split("\\|"))
-                .map(Integer::parseInt)
-                .toList();
-        assert orderingConfig.size() == 2 :
-                "There can only be two pages forming the page ordering config";
-        return new OrderingRule(orderingConfig.get(0), orderingConfig.get(1));
+    private OrderingRule parseRule(MappedInput.LineCursor line) {
+        MappedInput.FieldCursor field = line.fields('|');
+        boolean hasBefore = field.next();
+        assert hasBefore : "The page ordering config needs to start with a page";
+        int happensBefore = field.parseInt();
+        boolean hasAfter = field.next();
+        assert hasAfter : "There can only be two pages forming the page ordering config";
+        int happensAfter = field.parseInt();
+        boolean hasMore = field.next();
+        assert !hasMore : "There can only be two pages forming the page ordering config";
+        return new OrderingRule(happensBefore, happensAfter);
     }
 
     private record OrderingRule(int happensBefore, int happensAfter) {
+        @Override
+        public String toString() {
+            return "%d|%d".formatted(happensBefore, happensAfter);
+        }
     }
 
-    private record Update(List<Integer> pages) {
-        boolean isValidUpdate(Map<Integer, List<Integer>> happensBeforeMap) {
-            for (int i = 0; i < pages.size() - 1; i++) {
-                final int i_idx = i;
-                if (pages.subList(i + 1, pages.size())
-                        .stream()
-                        .anyMatch(value -> happensBeforeMap.getOrDefault(pages.get(i_idx),
-                                                                         List.of())
-                                .contains(value))) {
-                    return false;
+    /**
+     * The ordering rules as a bit matrix over the page numbers. Row p of the successor
+     * matrix holds the pages that need to come after page p, row p of the predecessor
+     * matrix the pages that need to come before it. Each row is a bitset of a few longs,
+     * so checking a rule is a single lookup and comparing a page against a whole set of
+     * pages takes a couple of ANDs.
+     */
+    private static final class RuleIndex {
+        // Page numbers in the puzzle have two digits.
+        static final int PAGE_COUNT = 100;
+        static final int WORDS = (PAGE_COUNT + Long.SIZE - 1) / Long.SIZE;
+
+        private final long[] successors = new long[PAGE_COUNT * WORDS];
+        private final long[] predecessors = new long[PAGE_COUNT * WORDS];
+
+        RuleIndex(List<OrderingRule> rules) {
+            for (OrderingRule rule : rules) {
+                assert isPage(rule.happensBefore()) && isPage(rule.happensAfter()) :
+                        "Page numbers need to be between 0 and %d.".formatted(PAGE_COUNT - 1);
+                set(successors, rule.happensBefore(), rule.happensAfter());
+                set(predecessors, rule.happensAfter(), rule.happensBefore());
+            }
+        }
+
+        static boolean isPage(int page) {
+            return 0 <= page && page < PAGE_COUNT;
+        }
+
+        private static void set(long[] matrix, int row, int page) {
+            matrix[row * WORDS + page / Long.SIZE] |= 1L << page;
+        }
+
+        boolean mustPrecede(int first, int second) {
+            return (successors[first * WORDS + second / Long.SIZE] & (1L << second)) != 0;
+        }
+
+        /**
+         * @return true if any of the pages in the set needs to come after the given page.
+         */
+        boolean hasSuccessorIn(int page, long[] pageSet) {
+            for (int w = 0; w < WORDS; w++) {
+                if ((successors[page * WORDS + w] & pageSet[w]) != 0) {
+                    return true;
                 }
             }
-            return true;
+            return false;
         }
 
-        public int getMiddlePageNumber() {
-            return pages.get(pages.size() / 2);
+        /**
+         * @return Number of pages in the set that need to come before the given page.
+         */
+        int countPredecessorsIn(int page, long[] pageSet) {
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                count += Long.bitCount(predecessors[page * WORDS + w] & pageSet[w]);
+            }
+            return count;
         }
 
-        public Update reorderAccordingTo(List<OrderingRule> rules) {
-            List<PageUpdate> pageUpdates = new ArrayList<>(pages.stream()
-                                                                   .map(p -> new PageUpdate(p,
-                                                                                            rules))
-                                                                   .toList());
-            pageUpdates.sort(PageUpdate::compareTo);
-            return new Update(pageUpdates.stream().map(PageUpdate::pageNumber).toList());
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                final int before = page;
+                String successorList = IntStream.range(0, PAGE_COUNT)
+                        .filter(after -> mustPrecede(before, after))
+                        .mapToObj(String::valueOf)
+                        .collect(Collectors.joining(", "));
+                if (!successorList.isEmpty()) {
+                    sb.append("%d -> [%s]\n".formatted(page, successorList));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private record Update(int[] pages) {
+        /**
+         * An update is valid if no page is preceded by a page that has to come after it.
+         * The pages seen so far are kept in a bitset, so each page is checked against all
+         * of them at once.
+         */
+        boolean isValidUpdate(RuleIndex ruleIndex) {
+            long[] seen = new long[RuleIndex.WORDS];
+            for (int page : pages) {
+                if (ruleIndex.hasSuccessorIn(page, seen)) {
+                    return false;
+                }
+                seen[page / Long.SIZE] |= 1L << page;
+            }
+            return true;
         }
 
-        /* Records required to do the reordering for the second part */
-        private record PageUpdate(int pageNumber, List<OrderingRule> rules)
-                implements Comparable<PageUpdate> {
-            @Override
-            public int compareTo(PageUpdate that) {
-                OrderingRule thisBeforeThat = new OrderingRule(pageNumber, that.pageNumber);
-                OrderingRule thatBeforeThis = new OrderingRule(that.pageNumber, pageNumber);
+        public int getMiddlePageNumber() {
+            return pages[pages.length / 2];
+        }
 
-                if (rules.contains(thisBeforeThat)) {
-                    return -1;
+        /**
+         * Topological sort of the pages of the update using Kahn's algorithm. Only the
+         * rules between pages of this update are taken into account, so the order is
+         * defined even if the rules as a whole contain cycles.
+         */
+        public Update reorderAccordingTo(RuleIndex ruleIndex) {
+            long[] pageSet = new long[RuleIndex.WORDS];
+            for (int page : pages) {
+                pageSet[page / Long.SIZE] |= 1L << page;
+            }
+            int[] remainingPredecessors = new int[pages.length];
+            int[] ordered = new int[pages.length];
+            int orderedCount = 0;
+            int readyCount = 0;
+            for (int i = 0; i < pages.length; i++) {
+                remainingPredecessors[i] = ruleIndex.countPredecessorsIn(pages[i], pageSet);
+                if (remainingPredecessors[i] == 0) {
+                    ordered[readyCount++] = pages[i];
                 }
-                if (rules.contains(thatBeforeThis)) {
-                    return 1;
+            }
+            // The ordered array doubles as the queue of pages whose predecessors have all
+            // been placed already.
+            while (orderedCount < readyCount) {
+                int page = ordered[orderedCount++];
+                for (int i = 0; i < pages.length; i++) {
+                    if (ruleIndex.mustPrecede(page, pages[i]) && --remainingPredecessors[i] == 0) {
+                        ordered[readyCount++] = pages[i];
+                    }
                 }
-                return 0;
             }
+            assert orderedCount == pages.length : "The rules between the pages of an update "
+                                                  + "can't contain a cycle.";
+            return new Update(ordered);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.stream(pages).mapToObj(String::valueOf).collect(Collectors.joining(","));
         }
     }
 
@@ -1,194 +1,226 @@
 package solutions.year2024;
 
-import lombok.AllArgsConstructor;
-import org.apache.commons.lang3.tuple.Pair;
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 import solutions.common.Direction;
-import solutions.common.Point;
+import solutions.common.EnumGrid;
 
 import java.util.*;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
-public class Day6 implements Solution {
-    @Override
-    public void firstPart(String inputFile) {
-        final var grid = parseFromInputStream(Utils.readInputAsStream(inputFile));
-        System.out.println(printGrid(grid));
+public class Day6 implements Solution<Integer, Integer> {
+    /**
+     * Directions in the order in which the guard turns, so that turning right is moving
+     * to the next one.
+     */
+    private static final Direction[] CLOCKWISE = {Direction.UP, Direction.RIGHT, Direction.DOWN,
+            Direction.LEFT};
 
-        Guard guard = findGuard(grid).get();
+    @Override
+    public Integer solveFirstPart(String inputFile) {
+        final var grid = parseGrid(Utils.mapInput(inputFile));
+        if (Utils.VERBOSE) {
+            System.out.println(printGrid(grid));
+        }
 
-        do {
-            guard.visitCell(grid);
-        } while (guard.takeStepOnGrid(grid).isPresent());
+        int guard = findGuard(grid).getAsInt();
+        walkAndVisitCells(grid, new JumpTable(grid), guard);
 
-        int visitedCells = grid.stream()
-                .map(row -> row.stream().filter(cell -> cell == GridCell.VISITED).count())
-                .reduce(Long::sum)
-                .get()
-                .intValue();
+        int visitedCells = grid.count(GridCell.VISITED);
 
-        System.out.println(printGrid(grid));
-        System.out.printf("Visited cells: %d\n", visitedCells);
+        if (Utils.VERBOSE) {
+            System.out.println(printGrid(grid));
+            System.out.printf("Visited cells: %d\n", visitedCells);
+        }
+        return visitedCells;
     }
 
 
     @Override
-    public void secondPart(String inputFile) {
-        final var grid = parseFromInputStream(Utils.readInputAsStream(inputFile));
-        System.out.println(printGrid(grid));
-
-        Guard guard = findGuard(grid).get();
-        var clearGrid = cloneGrid(grid);
-        var clearGuard = new Guard(guard.direction, guard.location);
-
-        Set<Point> newObstructionPositions = new HashSet<>();
-        do {
-            // We need to do the following:
-            // - Find all possible places for obstacles that won't result in the guard leaving the
-            //   board immediately.
-            // - Once we have found all of those positions, we insert the obstacle one-by-one
-            //   into different copies of the grid and run the search to check if it results in a
-            //   cycle.
-            //final var maybeNewObstruction = searchForObstaclesToTheRight(guard, grid);
-            // Turns out a brute-force trying of all location positions is fast enough.
-            // The whole idea about projecting rays was unnecessary.
-            newObstructionPositions.add(guard.location);
-            //maybeNewObstruction.ifPresent(newObstructionPositions::add);
-            guard.visitCell(grid);
-        } while (guard.takeStepOnGrid(grid).isPresent());
-
-        System.out.printf("New possible obstruction positions: %d\n", newObstructionPositions.size());
-        int cyclesFound = 0;
-        int iterations = 1;
-        for (var position : newObstructionPositions) {
-            System.out.println("Checking obstruction position: %s (%d/%s)".formatted(position, iterations, newObstructionPositions.size()));
-            var newPossibleGrid = cloneGrid(grid);
-            newPossibleGrid.get(position.y()).set(position.x(), GridCell.OBSTACLE_SPECIAL);
-            var newGuard = new Guard(clearGuard.direction, clearGuard.location);
-
-            Set<Pair<Point, Direction>> guardStates = new HashSet<>();
-
-            do {
-                if (guardStates.contains(Pair.of(newGuard.location, newGuard.direction))) {
-                    cyclesFound += 1;
-                    break;
-                }
-                newGuard.visitCell(newPossibleGrid);
-                guardStates.add(Pair.of(newGuard.location, newGuard.direction));
-            } while (newGuard.takeStepOnGrid(newPossibleGrid).isPresent());
-
-            iterations += 1;
+    public Integer solveSecondPart(String inputFile) {
+        final var grid = parseGrid(Utils.mapInput(inputFile));
+        if (Utils.VERBOSE) {
+            System.out.println(printGrid(grid));
         }
 
-        System.out.println("Positions that cause cycles found: %s".formatted(cyclesFound));
-
-    }
-
-    private Optional<Point> searchForObstaclesToTheRight(Guard guard,
-                                                                          List<List<GridCell>> grid) {
-        // copy the current state of the guard
-        Guard projectionRay = new Guard(guard.direction, guard.location);
-        List<List<GridCell>> projectionGrid = cloneGrid(grid);
-        // save the new location as we only count the new obstruction if it is within the grid.
-        Point possibleObstructionLocation =
-                projectionRay.location.translateInDirection(
-                guard.direction);
-        if (!possibleObstructionLocation.isInsideGrid(grid)
-            || possibleObstructionLocation.indexGrid(grid) == GridCell.OBSTACLE) {
-            return Optional.empty();
+        int start = findGuard(grid).getAsInt();
+        JumpTable jumpTable = new JumpTable(grid);
+
+        // We need to do the following:
+        // - Find all possible places for obstacles that won't result in the guard leaving the
+        //   board immediately. Only the cells on the original path of the guard can change it.
+        // - Once we have found all of those positions, we place the obstacle at each of them
+        //   and run the search to check if it results in a cycle.
+        walkAndVisitCells(grid, jumpTable, start);
+        int[] newObstructionPositions = IntStream.range(0, grid.size())
+                .filter(cell -> grid.get(cell) == GridCell.VISITED)
+                .toArray();
+
+        if (Utils.VERBOSE) {
+            System.out.printf("New possible obstruction positions: %d\n", newObstructionPositions.length);
         }
 
-        projectionRay.turnRight();
-        while (projectionRay.location.isInsideGrid(projectionGrid)) {
-            if (projectionRay.location.indexGrid(projectionGrid) == GridCell.OBSTACLE) {
-                // Obstacle found
-                return Optional.of(possibleObstructionLocation);
-            }
-            projectionRay.visitCell(projectionGrid);
-            projectionRay.location =
-                    projectionRay.location.translateInDirection(projectionRay.direction);
+        // The candidates are checked in parallel. They all share the original grid and the
+        // jump table in which the new obstruction is only overlaid virtually, so the only
+        // per-candidate state is the set of visited guard states which is reused by each of
+        // the worker threads.
+        ThreadLocal<BitSet> guardStates = ThreadLocal.withInitial(() -> new BitSet(
+                grid.size() * CLOCKWISE.length));
+        int cyclesFound = (int) Arrays.stream(newObstructionPositions)
+                .parallel()
+                .filter(obstruction -> causesCycle(jumpTable, start, obstruction, guardStates.get()))
+                .count();
+
+        if (Utils.VERBOSE) {
+            System.out.println("Positions that cause cycles found: %s".formatted(cyclesFound));
         }
-
-        return Optional.empty();
+        return cyclesFound;
     }
 
-    private static List<List<GridCell>> cloneGrid(List<List<GridCell>> grid) {
-        List<List<GridCell>> projectionGrid = grid.stream()
-                .map(ArrayList::new)
-                .map(l -> (List<GridCell>) l)
-                .toList();
-        return projectionGrid;
-    }
-
-    private Optional<Guard> findGuard(List<List<GridCell>> grid) {
-        for (int y = 0; y < grid.size(); y++) {
-            for (int x = 0; x < grid.get(0).size(); x++) {
-                if (grid.get(y).get(x) == GridCell.GUARD) {
-                    return Optional.of(new Guard(Direction.UP,
-                                                 new Point(x, y)));
+    /**
+     * Walks the guard from the start until it leaves the grid and marks all cells that
+     * it passes through as visited.
+     */
+    private static void walkAndVisitCells(EnumGrid<GridCell> grid, JumpTable jumpTable, int start) {
+        int location = start;
+        int direction = 0;
+        grid.set(location, GridCell.VISITED);
+        while (true) {
+            int stop = jumpTable.next(location, direction, JumpTable.EXIT);
+            // When the guard leaves the grid, it passes through all cells up to the edge.
+            while (location != stop) {
+                int nextLocation = grid.neighbour(location, CLOCKWISE[direction]);
+                if (nextLocation < 0) {
+                    return;
                 }
+                location = nextLocation;
+                grid.set(location, GridCell.VISITED);
             }
+            direction = (direction + 1) % CLOCKWISE.length;
         }
-        return Optional.empty();
     }
 
-    private List<List<GridCell>> parseFromInputStream(Stream<String> input) {
-        return input.map(line -> (List<GridCell>) new ArrayList<>(line.chars()
-                                                                          .mapToObj(c -> GridCell.fromChar(
-                                                                                  (char) c))
-                                                                          .toList())).toList();
+    /**
+     * Simulates the guard walking from the start with an additional obstruction placed at
+     * the given index. The guard jumps from one turn to the next, so the work is
+     * proportional to the number of turns and not to the length of the path.
+     *
+     * @param guardStates scratch set of visited (location, direction) states at the turns,
+     *                    each state is stored at location * 4 + index of the direction in
+     *                    {@link #CLOCKWISE}.
+     * @return true if the guard ends up walking in a cycle
+     */
+    private static boolean causesCycle(
+            JumpTable jumpTable,
+            int start,
+            int obstruction,
+            BitSet guardStates
+    ) {
+        guardStates.clear();
+        int location = start;
+        int direction = 0;
+        while (true) {
+            int stop = jumpTable.next(location, direction, obstruction);
+            if (stop == JumpTable.EXIT) {
+                return false;
+            }
+            int state = stop * CLOCKWISE.length + direction;
+            if (guardStates.get(state)) {
+                return true;
+            }
+            guardStates.set(state);
+            location = stop;
+            direction = (direction + 1) % CLOCKWISE.length;
+        }
     }
 
-    private String printGrid(List<List<GridCell>> grid) {
-        return "==========\n" + grid.stream()
-                .map(row -> row.stream().map(Objects::toString).collect(Collectors.joining("")))
-                .collect(Collectors.joining("\n")) + "\n==========\n";
+    private static boolean isObstacle(GridCell cell) {
+        return cell == GridCell.OBSTACLE || cell == GridCell.OBSTACLE_SPECIAL;
     }
 
-    @AllArgsConstructor
-    private class Guard {
-        private Direction direction;
-        private Point location;
+    /**
+     * For each cell and direction holds the cell at which a guard walking straight from
+     * that cell stops in front of the next obstacle, or {@link #EXIT} if the guard walks
+     * off the grid. The table is immutable and can be shared between threads.
+     */
+    private static final class JumpTable {
+        static final int EXIT = -1;
+
+        private final EnumGrid<GridCell> grid;
+        private final int[] stops;
+
+        JumpTable(EnumGrid<GridCell> grid) {
+            this.grid = grid;
+            this.stops = new int[grid.size() * CLOCKWISE.length];
+            for (int direction = 0; direction < CLOCKWISE.length; direction++) {
+                // The stop of a cell is derived from the stop of its neighbour in the
+                // direction of walking, so that neighbour needs to be filled in first.
+                // Going up or left the neighbour has a lower index, otherwise a higher one.
+                boolean ascending = CLOCKWISE[direction] == Direction.UP
+                                    || CLOCKWISE[direction] == Direction.LEFT;
+                for (int i = 0; i < grid.size(); i++) {
+                    int cell = ascending ? i : grid.size() - 1 - i;
+                    int nb = grid.neighbour(cell, CLOCKWISE[direction]);
+                    int stop;
+                    if (nb < 0) {
+                        stop = EXIT;
+                    } else if (isObstacle(grid.get(nb))) {
+                        stop = cell;
+                    } else {
+                        stop = stops[nb * CLOCKWISE.length + direction];
+                    }
+                    stops[cell * CLOCKWISE.length + direction] = stop;
+                }
+            }
+        }
 
         /**
-         * The guard will try to take the next step on the grid according to the puzzle
-         * logic, if the next location falls outside of the grid, the returned
-         * optional will be empty indicating that the main 'game' loop
-         * is over.
+         * @param obstruction index of an additional obstacle that is not part of the grid
+         *                    or {@link #EXIT} if there is none. It is patched in by
+         *                    checking whether it lies between the cell and the stop.
          */
-        public Optional<Point> takeStepOnGrid(List<List<GridCell>> grid) {
-            Point nextLocation = location.translateInDirection(direction);
-            if (!nextLocation.isInsideGrid(grid)) {
-                return Optional.empty();
-            }
-            while (nextLocation.indexGrid(grid) == GridCell.OBSTACLE || nextLocation.indexGrid(grid) == GridCell.OBSTACLE_SPECIAL) {
-                turnRight();
-                nextLocation = location.translateInDirection(direction);
-                if (!nextLocation.isInsideGrid(grid)) {
-                    return Optional.empty();
-                }
+        int next(int location, int direction, int obstruction) {
+            int stop = stops[location * CLOCKWISE.length + direction];
+            if (obstruction == EXIT || !liesAhead(location, direction, obstruction, stop)) {
+                return stop;
             }
-            location = nextLocation;
-            return Optional.of(location);
+            // The guard stops right in front of the obstruction.
+            return grid.neighbour(obstruction, CLOCKWISE[(direction + 2) % CLOCKWISE.length]);
         }
 
-        private void turnRight() {
-            direction = switch (direction) {
-                case UP -> Direction.RIGHT;
-                case DOWN -> Direction.LEFT;
-                case LEFT -> Direction.UP;
-                case RIGHT -> Direction.DOWN;
+        /**
+         * @return true if the guard walking from the location would bump into the cell
+         * before reaching the stop, or would be stopped right at it.
+         */
+        private boolean liesAhead(int location, int direction, int cell, int stop) {
+            int x = grid.x(location);
+            int y = grid.y(location);
+            int cellX = grid.x(cell);
+            int cellY = grid.y(cell);
+            return switch (CLOCKWISE[direction]) {
+                case UP -> cellX == x && cellY < y && (stop == EXIT || cellY >= grid.y(stop));
+                case DOWN -> cellX == x && cellY > y && (stop == EXIT || cellY <= grid.y(stop));
+                case LEFT -> cellY == y && cellX < x && (stop == EXIT || cellX >= grid.x(stop));
+                case RIGHT -> cellY == y && cellX > x && (stop == EXIT || cellX <= grid.x(stop));
             };
         }
+    }
 
-        public void visitCell(List<List<GridCell>> grid) {
-            assert location.isInsideGrid(grid) :
-                    "The guard cannot visit a cell that is outside of the grid.";
-            grid.get(location.y()).set(location.x(), GridCell.VISITED);
+    private OptionalInt findGuard(EnumGrid<GridCell> grid) {
+        int guardIndex = grid.indexOf(GridCell.GUARD);
+        if (guardIndex < 0) {
+            return OptionalInt.empty();
         }
+        return OptionalInt.of(guardIndex);
+    }
+
+    private EnumGrid<GridCell> parseGrid(MappedInput input) {
+        return EnumGrid.parse(input, GridCell.class, GridCell::fromChar);
+    }
+
+    private String printGrid(EnumGrid<GridCell> grid) {
+        return "==========\n" + grid + "\n==========\n";
     }
 
     private enum GridCell {
@@ -1,31 +1,30 @@
 package solutions.year2024;
 
-import com.google.common.collect.Streams;
 import solutions.Solution;
 import solutions.Utils;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
-public class Day7 implements Solution {
+public class Day7 implements Solution<Long, Long> {
     @Override
-    public void firstPart(String inputFile) {
+    public Long solveFirstPart(String inputFile) {
         final Set<BinaryOperation> availableOperations = Set.of(BinaryOperation.ADD,
                                                                 BinaryOperation.MULTIPLY);
-        runParameterizableSolution(inputFile, availableOperations);
+        return runParameterizableSolution(inputFile, availableOperations);
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public Long solveSecondPart(String inputFile) {
         final Set<BinaryOperation> availableOperations = Set.of(BinaryOperation.ADD,
                                                                 BinaryOperation.MULTIPLY,
                                                                 BinaryOperation.CONCATENATE);
-        runParameterizableSolution(inputFile, availableOperations);
+        return runParameterizableSolution(inputFile, availableOperations);
     }
 
-    private static void runParameterizableSolution(
+    private static long runParameterizableSolution(
             String inputFile,
             Set<BinaryOperation> availableOperations
     ) {
@@ -33,42 +32,32 @@ public class Day7 implements Solution {
                 .map(CalibrationEquation::fromString)
                 .toList();
 
-        System.out.printf("All equations:\n%s\n", Utils.toStringLineByLine(equations));
+        if (Utils.VERBOSE) {
+            System.out.printf("All equations:\n%s\n", Utils.toStringLineByLine(equations));
+        }
 
-        List<CalibrationEquation> satisfiableEquations = equations.stream()
-                .filter(eq -> eq.canBeTrueWith(availableOperations))
+        final BinaryOperation[] operations = availableOperations.toArray(BinaryOperation[]::new);
+        List<CalibrationEquation> satisfiableEquations = equations.parallelStream()
+                .filter(eq -> eq.canBeTrueWith(operations))
                 .toList();
 
-        System.out.printf("Satisfiable equations:\n%s\n",
-                          Utils.toStringLineByLine(satisfiableEquations));
+        if (Utils.VERBOSE) {
+            System.out.printf("Satisfiable equations:\n%s\n",
+                              Utils.toStringLineByLine(satisfiableEquations));
+        }
 
         long sumOfTestValues = satisfiableEquations.stream()
-                .map(CalibrationEquation::result)
-                .reduce(Long::sum)
-                .get();
-
-        System.out.printf("Sum of test values: %d\n", sumOfTestValues);
-    }
+                .mapToLong(CalibrationEquation::result)
+                .sum();
 
-
-    public static List<List<BinaryOperation>> getAllPossibleBinaryOperationAssignmentsOfLength(
-            Set<BinaryOperation> availableOperations,
-            int length
-    ) {
-        if (length == 1) {
-            return availableOperations.stream().map(List::of).toList();
+        if (Utils.VERBOSE) {
+            System.out.printf("Sum of test values: %d\n", sumOfTestValues);
         }
-
-        return getAllPossibleBinaryOperationAssignmentsOfLength(availableOperations,
-                                                                length - 1).stream()
-                .map(assignment -> availableOperations.stream()
-                        .map(op -> Streams.concat(assignment.stream(), Stream.of(op)).toList())
-                        .toList())
-                .flatMap(List::stream)
-                .toList();
+        return sumOfTestValues;
     }
 
-    record CalibrationEquation(long result, List<Long> parameters) {
+
+    record CalibrationEquation(long result, long[] parameters) {
         public static CalibrationEquation fromString(String line) {
             assert line.contains(":") :
                     "Calibration equation string needs to be of the format: 'result: x1 x2 x3 ....";
@@ -76,43 +65,101 @@ public class Day7 implements Solution {
             List<String> resultAndParams = Arrays.stream(line.split(": ")).toList();
             assert resultAndParams.size() == 2 :
                     "Both the equation result and the parameters need to be provided";
-            return new CalibrationEquation(Long.parseLong(resultAndParams.get(0)),
-                                           Arrays.stream(resultAndParams.get(1).split(" "))
-                                                   .filter(s -> !s.isBlank())
-                                                   .map(Long::parseLong)
-                                                   .toList());
+            long[] parameters = Arrays.stream(resultAndParams.get(1).split(" "))
+                    .filter(s -> !s.isBlank())
+                    .mapToLong(Long::parseLong)
+                    .toArray();
+            // Undoing the operations relies on all intermediate values being non-negative.
+            if (Arrays.stream(parameters).anyMatch(x -> x < 0)) {
+                throw new IllegalArgumentException(
+                        "The operands cannot be negative, got: '%s'".formatted(line));
+            }
+            return new CalibrationEquation(Long.parseLong(resultAndParams.get(0)), parameters);
         }
 
-        public boolean canBeTrueWith(Set<BinaryOperation> availableOperations) {
-            List<List<BinaryOperation>> possibleAssignments =
-                    getAllPossibleBinaryOperationAssignmentsOfLength(
-                    availableOperations,
-                    parameters.size() - 1);
-            return possibleAssignments.stream()
-                    .anyMatch(assignment -> result == evaluateAssignment(assignment));
+        /**
+         * Works backwards from the result. The last operation is applied to the value of
+         * all the operands before the last one and to the last operand, so undoing it
+         * leaves the value that the remaining operands need to produce. Most operations
+         * can't be undone for most values, e.g. multiplication only if the last operand
+         * divides the value and concatenation only if the value ends with its digits,
+         * which cuts off whole subtrees of operator assignments at once.
+         */
+        public boolean canBeTrueWith(BinaryOperation[] availableOperations) {
+            assert parameters.length > 0 : "An equation needs to have at least one operand.";
+            return canProduce(result, parameters.length - 1, availableOperations);
         }
 
-        public long evaluateAssignment(List<BinaryOperation> operations) {
-            assert operations.size() == parameters.size() - 1;
-            long first = parameters.getFirst();
-            for (int i = 1; i < parameters.size(); i++) {
-                long second = parameters.get(i);
-                BinaryOperation op = operations.get(i - 1);
-                first = op.apply(first, second);
+        /**
+         * @return true if the operands up to and including the one at the given index can
+         * be combined into the value.
+         */
+        private boolean canProduce(long value, int last, BinaryOperation[] availableOperations) {
+            if (last == 0) {
+                return value == parameters[0];
             }
-            return first;
+            for (BinaryOperation operation : availableOperations) {
+                long previous = operation.undo(value, parameters[last]);
+                if (previous == BinaryOperation.ANY_VALUE) {
+                    // The operands before are non-negative and so is anything they produce.
+                    return true;
+                }
+                if (previous >= 0 && canProduce(previous, last - 1, availableOperations)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "%d: %s".formatted(result,
+                                      Arrays.stream(parameters)
+                                              .mapToObj(String::valueOf)
+                                              .collect(Collectors.joining(" ")));
         }
     }
 
     public enum BinaryOperation {
         ADD, MULTIPLY, CONCATENATE;
 
-        public long apply(long x1, long x2) {
+        /**
+         * Returned by {@link #undo} when any non-negative x1 results in the value, which
+         * is the case for multiplying by zero.
+         */
+        static final long ANY_VALUE = -2;
+
+        /**
+         * @return The value x1 for which applying the operation to x1 and x2 results in the
+         * given value, {@link #ANY_VALUE} if every non-negative x1 does or -1 if there is no
+         * such non-negative value.
+         */
+        public long undo(long value, long x2) {
             return switch (this) {
-                case ADD -> x1 + x2;
-                case MULTIPLY -> x1 * x2;
-                case CONCATENATE -> Long.parseLong(String.valueOf(x1) + x2);
+                case ADD -> value >= x2 ? value - x2 : -1;
+                case MULTIPLY -> {
+                    if (x2 == 0) {
+                        yield value == 0 ? ANY_VALUE : -1;
+                    }
+                    yield value % x2 == 0 ? value / x2 : -1;
+                }
+                case CONCATENATE -> {
+                    long power = powerOfTenAbove(x2);
+                    yield value % power == x2 ? value / power : -1;
+                }
             };
         }
+
+        /**
+         * @return The smallest power of ten greater than x, i.e. 10 ^ number of digits of x,
+         * which is 10 for 0 as that is written with a single digit.
+         */
+        private static long powerOfTenAbove(long x) {
+            long power = 10;
+            while (power <= x) {
+                power *= 10;
+            }
+            return power;
+        }
     }
 }
@@ -9,11 +9,13 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day8 implements Solution {
+public class Day8 implements Solution<Integer, Integer> {
     @Override
-    public void firstPart(String inputFile) {
+    public Integer solveFirstPart(String inputFile) {
         final var cityMap = getCityMap(Utils.readInputAsStream(inputFile));
-        System.out.println(printCityMap(cityMap));
+        if (Utils.VERBOSE) {
+            System.out.println(printCityMap(cityMap));
+        }
 
         // Need to group antennas into sets of same frequency
 
@@ -35,10 +37,12 @@ public class Day8 implements Solution {
                 .filter(antinode -> antinode.isInsideGrid(cityMap))
                 .collect(Collectors.toSet());
 
-        System.out.printf("There are %d unique antinodes\n", uniqueAntinodeLocations.size());
-
-        markAntinodes(cityMap, uniqueAntinodeLocations);
-        System.out.println(printCityMap(cityMap));
+        if (Utils.VERBOSE) {
+            System.out.printf("There are %d unique antinodes\n", uniqueAntinodeLocations.size());
+            markAntinodes(cityMap, uniqueAntinodeLocations);
+            System.out.println(printCityMap(cityMap));
+        }
+        return uniqueAntinodeLocations.size();
     }
 
     private void markAntinodes(
@@ -51,9 +55,11 @@ public class Day8 implements Solution {
     }
 
     @Override
-    public void secondPart(String inputFile) {
+    public Integer solveSecondPart(String inputFile) {
         final var cityMap = getCityMap(Utils.readInputAsStream(inputFile));
-        System.out.println(printCityMap(cityMap));
+        if (Utils.VERBOSE) {
+            System.out.println(printCityMap(cityMap));
+        }
 
         // Need to group antennas into sets of same frequency
 
@@ -75,9 +81,12 @@ public class Day8 implements Solution {
                 .filter(antinode -> antinode.isInsideGrid(cityMap))
                 .collect(Collectors.toSet());
 
-        System.out.printf("There are %d unique antinodes\n", uniqueAntinodeLocations.size());
-        markAntinodes(cityMap, uniqueAntinodeLocations);
-        System.out.println(printCityMap(cityMap));
+        if (Utils.VERBOSE) {
+            System.out.printf("There are %d unique antinodes\n", uniqueAntinodeLocations.size());
+            markAntinodes(cityMap, uniqueAntinodeLocations);
+            System.out.println(printCityMap(cityMap));
+        }
+        return uniqueAntinodeLocations.size();
     }
 
     private Set<Point> traceAntinodesPart2(
@@ -1,178 +1,282 @@
 package solutions.year2024;
 
+import solutions.MappedInput;
 import solutions.Solution;
 import solutions.Utils;
 
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Arrays;
 
-public class Day9 implements Solution {
+public class Day9 implements Solution<Long, Long> {
     @Override
-    public void firstPart(String inputFile) {
-        final var diskLayout = readDiskLayout(Utils.readInputAsStream(inputFile).toList().get(0));
-        System.out.println(printDiskLayout(diskLayout));
-        final var compactedDisk = performCompaction(diskLayout);
-        System.out.println(printDiskLayout(compactedDisk));
-        long checksum = calculateChecksum(compactedDisk);
-        System.out.printf("Disk checksum: %d", checksum);
-
+    public Long solveFirstPart(String inputFile) {
+        final MappedInput diskMap = Utils.mapInput(inputFile);
+        if (Utils.VERBOSE) {
+            System.out.println(DiskMap.parse(diskMap));
+        }
+        long checksum = compactBlocksAndCalculateChecksum(diskMap);
+        if (Utils.VERBOSE) {
+            System.out.printf("Disk checksum: %d", checksum);
+        }
+        return checksum;
     }
 
     @Override
-    public void secondPart(String inputFile) {
-        final var diskLayout = readDiskLayout(Utils.readInputAsStream(inputFile).toList().get(0));
-        System.out.println(printDiskLayout(diskLayout));
-        final var compactedDisk = performCompactionChunked(diskLayout);
-        System.out.println(printDiskLayout(compactedDisk));
-        long checksum = calculateChecksum(compactedDisk);
-        System.out.printf("Disk checksum: %d", checksum);
+    public Long solveSecondPart(String inputFile) {
+        final var diskMap = DiskMap.parse(Utils.mapInput(inputFile));
+        if (Utils.VERBOSE) {
+            System.out.println(diskMap);
+        }
+        diskMap.compactWholeFiles();
+        long checksum = diskMap.checksum();
+        if (Utils.VERBOSE) {
+            System.out.println(diskMap);
+            System.out.printf("Disk checksum: %d", checksum);
+        }
+        return checksum;
     }
 
 
-    private long calculateChecksum(List<Optional<DiskBlock>> compactedDisk) {
+    /**
+     * Moving single blocks from the end of the disk into the leftmost free blocks is
+     * simulated directly on the digits of the disk map, without expanding it into blocks.
+     * <p>
+     * The left pointer walks over the spans from the start of the disk and fixes the
+     * final position of each of them. Files stay where they are, while gaps are filled
+     * with the blocks of the file the right pointer is at, which moves towards the start
+     * as its files are used up. Each piece contributes an arithmetic series to the
+     * checksum, so only a couple of counters are needed regardless of the size of the
+     * disk.
+     */
+    private static long compactBlocksAndCalculateChecksum(MappedInput diskMap) {
+        int digits = countDigits(diskMap);
+        if (digits == 0) {
+            return 0;
+        }
+        int left = 0;
+        // The right pointer only ever points at files, i.e. at even digits.
+        int right = (digits - 1) / 2 * 2;
+        int rightRemaining = digitAt(diskMap, right);
+        long position = 0;
         long checksum = 0;
-        for (int i = 0; i < compactedDisk.size(); i++) {
-            final var maybeBlock = compactedDisk.get(i);
-            if (maybeBlock.isPresent()) {
-                checksum += i * maybeBlock.get().id;
+        while (left <= right) {
+            if (left % 2 == 0) {
+                // The file that the right pointer has partially moved already keeps only
+                // the blocks that are left of it.
+                int length = left == right ? rightRemaining : digitAt(diskMap, left);
+                checksum += (long) (left / 2) * spanPositionSum(position, length);
+                position += length;
+            } else {
+                int gap = digitAt(diskMap, left);
+                while (gap > 0 && right > left) {
+                    if (rightRemaining == 0) {
+                        right -= 2;
+                        rightRemaining = right > left ? digitAt(diskMap, right) : 0;
+                        continue;
+                    }
+                    int moved = Math.min(gap, rightRemaining);
+                    checksum += (long) (right / 2) * spanPositionSum(position, moved);
+                    position += moved;
+                    gap -= moved;
+                    rightRemaining -= moved;
+                }
             }
+            left++;
         }
         return checksum;
     }
 
-    private List<Optional<DiskBlock>> performCompaction(List<Optional<DiskBlock>> diskLayout) {
-        List<DiskBlock> replacementBlocks = new ArrayList<>(diskLayout.stream()
-                                                                    .filter(Optional::isPresent)
-                                                                    .map(Optional::get)
-                                                                    .toList());
-        List<Optional<DiskBlock>> compactedDiskLayout = new ArrayList<>();
-        int totalBlocks = replacementBlocks.size();
-        // Reverse replacement blocks as we need to start from the back.
-        Collections.reverse(replacementBlocks);
-        for (int i = 0; i < totalBlocks; i++) {
-            if (diskLayout.get(i).isPresent()) {
-                compactedDiskLayout.add(diskLayout.get(i));
-            } else {
-                compactedDiskLayout.add(Optional.of(replacementBlocks.removeFirst()));
-            }
+    /**
+     * @return Number of digits of the disk map, without the trailing line terminator.
+     */
+    private static int countDigits(MappedInput diskMap) {
+        int digits = diskMap.length();
+        while (digits > 0 && !Character.isDigit(diskMap.charAt(digits - 1))) {
+            digits--;
         }
-        // After all replacements, we need to append empty blocks
-        while (compactedDiskLayout.size() < diskLayout.size()) {
-            compactedDiskLayout.add(Optional.empty());
-        }
-        return compactedDiskLayout;
+        return digits;
     }
 
-    private List<Optional<DiskBlock>> performCompactionChunked(List<Optional<DiskBlock>> diskLayout) {
-        List<Optional<File>> diskLayoutFilesInChunks = assembleFiles(diskLayout);
-        System.out.println(printChunkedFiles(diskLayoutFilesInChunks));
+    private static int digitAt(MappedInput diskMap, int index) {
+        int digit = diskMap.charAt(index) - '0';
+        assert 0 <= digit && digit <= 9 : "The disk map needs to consist of single digits.";
+        return digit;
+    }
 
-        List<Optional<DiskBlock>> output = new ArrayList<>(diskLayout);
+    /**
+     * Run-length model of the disk: each file and each gap is a span given by its first
+     * block and its length. Files never grow or split when compacting whole files, so
+     * the spans are all that is needed to compute the checksum.
+     */
+    private static final class DiskMap {
+        private static final int MAX_SPAN_LENGTH = 9;
 
-        Map<Integer, Integer> candidatesOriginalPositions = new HashMap<>();
+        // Indexed by the file id.
+        private final int[] fileStarts;
+        private final int[] fileLengths;
+        // Gaps in the order in which they appear on the disk.
+        private final int[] gapStarts;
+        private final int[] gapLengths;
+        private final int size;
 
+        private DiskMap(int[] fileStarts, int[] fileLengths, int[] gapStarts, int[] gapLengths, int size) {
+            this.fileStarts = fileStarts;
+            this.fileLengths = fileLengths;
+            this.gapStarts = gapStarts;
+            this.gapLengths = gapLengths;
+            this.size = size;
+        }
 
-        List<File> candidatesToMove = new ArrayList<>(diskLayoutFilesInChunks.stream()
-                                                              .filter(Optional::isPresent)
-                                                              .map(Optional::get)
-                                                              .toList());
-        for (File candidate : candidatesToMove) {
-            for (int i = 0; i < output.size(); i++) {
-                if (output.get(i).isPresent() && output.get(i).get().id == candidate.id) {
-                    candidatesOriginalPositions.put(candidate.id, i);
+        static DiskMap parse(MappedInput input) {
+            int digits = countDigits(input);
+            int fileCount = (digits + 1) / 2;
+            int[] fileStarts = new int[fileCount];
+            int[] fileLengths = new int[fileCount];
+            int[] gapStarts = new int[digits / 2];
+            int[] gapLengths = new int[digits / 2];
+            long position = 0;
+            for (int i = 0; i < digits; i++) {
+                int length = digitAt(input, i);
+                if (i % 2 == 0) {
+                    fileStarts[i / 2] = (int) position;
+                    fileLengths[i / 2] = length;
+                } else {
+                    gapStarts[i / 2] = (int) position;
+                    gapLengths[i / 2] = length;
                 }
+                position += length;
             }
+            assert position <= Integer.MAX_VALUE : "The disk can have at most 2^31 blocks.";
+            return new DiskMap(fileStarts, fileLengths, gapStarts, gapLengths, (int) position);
         }
-        Collections.reverse(candidatesToMove);
-        for (File candidate : candidatesToMove) {
-            for (int i = 0; i < candidatesOriginalPositions.get(candidate.id); i++) {
-                if (i + candidate.length <= output.size() && output.subList(i, i + candidate.length)
-                        .stream()
-                        .allMatch(Optional::isEmpty)) {
-                    for (int j = i; j < output.size(); j++) {
-                        if (j < i + candidate.length) {
-                            output.set(j, Optional.of(new DiskBlock(candidate.id)));
-                        } else if (output.get(j).isPresent()
-                                   && output.get(j).get().id == candidate.id) {
-                            // Clean up the old location of the block.
-                            output.set(j, Optional.empty());
-                        }
-                    }
-                    break;
+
+        /**
+         * Moves each file once, in the order of decreasing ids, into the leftmost gap that
+         * is large enough for it and lies to the left of the file.
+         * <p>
+         * The gaps are indexed by their length in one min-heap of starts per length, so the
+         * leftmost gap that fits is the smallest of the heads of the heaps for the lengths
+         * of at least the file length. What is left of a gap after a file is moved into it
+         * is a gap that starts further to the right, so it is pushed to the heap for its
+         * new length. The blocks freed up by a file are never used again, since all files
+         * that are moved after it start to the left of it and only move further left.
+         */
+        void compactWholeFiles() {
+            IntMinHeap[] gapsByLength = new IntMinHeap[MAX_SPAN_LENGTH + 1];
+            for (int length = 1; length <= MAX_SPAN_LENGTH; length++) {
+                gapsByLength[length] = new IntMinHeap();
+            }
+            for (int gap = 0; gap < gapStarts.length; gap++) {
+                if (gapLengths[gap] > 0) {
+                    gapsByLength[gapLengths[gap]].push(gapStarts[gap]);
                 }
             }
-        }
-        return output;
-    }
-
-    private String printChunkedFiles(List<Optional<File>> files) {
-        return files.stream()
-                .map(maybeFile -> maybeFile.isPresent() ? String.valueOf(maybeFile.get().id)
-                        .repeat(maybeFile.get().length) : ".")
-                .collect(Collectors.joining(""));
-    }
-
-    private List<Optional<File>> assembleFiles(List<Optional<DiskBlock>> diskLayout) {
-        List<Optional<File>> output = new ArrayList<>();
 
-        Optional<DiskBlock> lastBlock = Optional.empty();
-        int streak = 0;
-        for (final var maybeFileBlock : diskLayout) {
-            if (maybeFileBlock.isEmpty()) {
-                if (lastBlock.isPresent()) {
-                    output.add(Optional.of(new File(lastBlock.get().id, streak)));
+            for (int file = fileStarts.length - 1; file >= 0; file--) {
+                int fileLength = fileLengths[file];
+                if (fileLength == 0) {
+                    continue;
                 }
-                output.add(Optional.empty());
-                lastBlock = maybeFileBlock;
-                streak = 0;
-            } else {
-                if (lastBlock.isEmpty() || lastBlock.get().id == maybeFileBlock.get().id) {
-                    streak++;
-                    lastBlock = maybeFileBlock;
-                } else if (lastBlock.get().id != maybeFileBlock.get().id) {
-                    output.add(Optional.of(new File(lastBlock.get().id, streak)));
-                    streak = 1;
-                    lastBlock = maybeFileBlock;
+                int bestLength = -1;
+                int bestStart = fileStarts[file];
+                for (int length = fileLength; length <= MAX_SPAN_LENGTH; length++) {
+                    IntMinHeap gaps = gapsByLength[length];
+                    if (!gaps.isEmpty() && gaps.peek() < bestStart) {
+                        bestLength = length;
+                        bestStart = gaps.peek();
+                    }
+                }
+                if (bestLength < 0) {
+                    continue;
+                }
+                gapsByLength[bestLength].poll();
+                fileStarts[file] = bestStart;
+                if (bestLength > fileLength) {
+                    gapsByLength[bestLength - fileLength].push(bestStart + fileLength);
                 }
             }
         }
-        if (streak > 0 && lastBlock.isPresent()) {
-            output.add(Optional.of(new File(lastBlock.get().id, streak)));
-        }
-        return output;
-    }
 
+        long checksum() {
+            long checksum = 0;
+            for (int file = 0; file < fileStarts.length; file++) {
+                checksum += file * spanPositionSum(fileStarts[file], fileLengths[file]);
+            }
+            return checksum;
+        }
 
-    private static List<Optional<DiskBlock>> readDiskLayout(String input) {
-        List<Character> chars = input.chars().mapToObj(c -> (char) c).toList();
-        List<Optional<DiskBlock>> diskLayout = new ArrayList<>();
-        for (int i = 0; i < chars.size(); i++) {
-            if (i % 2 == 0) {
-                int count = Integer.parseInt(String.valueOf(chars.get(i)));
-                int id = i / 2;
-                IntStream.range(0, count)
-                        .forEach(_x -> diskLayout.add(Optional.of(new DiskBlock(id))));
-            } else {
-                int count = Integer.parseInt(String.valueOf(chars.get(i)));
-                IntStream.range(0, count).forEach(_x -> diskLayout.add(Optional.empty()));
+        @Override
+        public String toString() {
+            char[] blocks = new char[size];
+            Arrays.fill(blocks, '.');
+            for (int file = 0; file < fileStarts.length; file++) {
+                char label = Character.forDigit(file % 36, 36);
+                Arrays.fill(blocks, fileStarts[file], fileStarts[file] + fileLengths[file], label);
             }
+            return new String(blocks);
         }
-        return diskLayout;
     }
 
-    private static String printDiskLayout(List<Optional<DiskBlock>> diskLayout) {
-        return diskLayout.stream()
-                .map(maybeBlock -> maybeBlock.isPresent() ? String.valueOf(maybeBlock.get().id) :
-                        ".")
-                .collect(Collectors.joining(""));
-
+    /**
+     * @return Sum of the positions of the blocks in the span, i.e. the arithmetic series
+     * start + (start + 1) + ... + (start + length - 1).
+     */
+    private static long spanPositionSum(long start, long length) {
+        return length * start + length * (length - 1) / 2;
     }
 
-    record File(int id, int length) {
-    }
+    /**
+     * Binary min-heap of ints stored in an array that grows as needed.
+     */
+    private static final class IntMinHeap {
+        private int[] heap = new int[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            assert size > 0 : "Cannot peek into an empty heap.";
+            return heap[0];
+        }
 
-    record DiskBlock(int id) {
+        void push(int value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            int position = size++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = value;
+        }
 
+        int poll() {
+            assert size > 0 : "Cannot poll an empty heap.";
+            int top = heap[0];
+            int last = heap[--size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = last;
+            return top;
+        }
     }
 }